@@ -0,0 +1,45 @@
+package com.shopaccgame.config;
+
+import com.shopaccgame.service.EntityCacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-memory caches for rarely changing entity reads, stored as DTOs.
+ * Entries are evicted by EntityCacheService when a CatalogChangedEvent commits, and
+ * expire after app.cache.ttl in case a concurrent reader stored a row from before the change.
+ * Each cache holds at most app.cache.max-entries, since every id ever requested would otherwise stay.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(MeterRegistry meterRegistry, @Value("${app.cache.ttl:10m}") Duration ttl,
+                                     @Value("${app.cache.max-entries:10000}") int maxEntries) {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                StatisticsCache statisticsCache = new StatisticsCache(new ExpiringConcurrentMapCache(name, ttl, maxEntries));
+                // Same meter names Micrometer uses for Caffeine/JCache, so dashboards work unchanged
+                FunctionCounter.builder("cache.gets", statisticsCache, StatisticsCache::getHits)
+                    .tag("cache", name).tag("result", "hit").register(meterRegistry);
+                FunctionCounter.builder("cache.gets", statisticsCache, StatisticsCache::getMisses)
+                    .tag("cache", name).tag("result", "miss").register(meterRegistry);
+                return statisticsCache;
+            }
+        };
+        // Fixed set of caches; a typo in a cache name fails instead of silently creating a new one
+        cacheManager.setCacheNames(EntityCacheService.CACHE_NAMES);
+        return cacheManager;
+    }
+}
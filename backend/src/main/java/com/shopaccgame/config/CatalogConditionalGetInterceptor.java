@@ -0,0 +1,43 @@
+package com.shopaccgame.config;
+
+import com.shopaccgame.service.CatalogService;
+import com.shopaccgame.service.ResponseFormats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers If-None-Match / If-Modified-Since on catalog reads with 304 before the controller runs.
+ * The ETag is the catalog snapshot version, which moves on every catalog write, so a match
+ * proves the client already holds the current payload and no database work is needed.
+ * Each response format (JSON, Smile, CBOR) is a separate representation with its own ETag.
+ */
+@Component
+public class CatalogConditionalGetInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        String etag = catalogService.getCatalogETag();
+        MediaType format = ResponseFormats.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (!MediaType.APPLICATION_JSON.equals(format)) {
+            etag = etag.substring(0, etag.length() - 1) + "-" + format.getSubtype() + "\"";
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // Also writes ETag and Last-Modified on the 200 response when the client copy is stale
+        boolean notModified = new ServletWebRequest(request, response)
+            .checkNotModified(etag, catalogService.getCatalogLastModified());
+        return !notModified;
+    }
+}
@@ -0,0 +1,31 @@
+package com.shopaccgame.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class CatalogWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private CatalogConditionalGetInterceptor catalogConditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Public catalog reads whose content is fully determined by the catalog version and the URL
+        registry.addInterceptor(catalogConditionalGetInterceptor)
+                .addPathPatterns(
+                    "/games/all",
+                    "/games/names",
+                    "/games/suggest",
+                    "/account-info/available",
+                    "/account-info/available/type/*",
+                    "/steam-accounts/all",
+                    "/steam-accounts/available",
+                    "/steam-accounts/available/*",
+                    "/steam-accounts/game/*",
+                    "/catalog/query"
+                );
+    }
+}
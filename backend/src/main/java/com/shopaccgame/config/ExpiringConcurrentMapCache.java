@@ -0,0 +1,125 @@
+package com.shopaccgame.config;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ConcurrentMapCache whose entries expire a fixed time after they were written, holding at most
+ * maxEntries. Eviction on CatalogChangedEvent can race a reader that loaded the old row before the
+ * writer committed and stores it after the eviction; the TTL bounds how long such an entry lives.
+ * Expired entries are dropped when looked up and by purgeExpired, which EntityCacheService runs
+ * periodically; a write past maxEntries drops the oldest entries first.
+ */
+public class ExpiringConcurrentMapCache extends ConcurrentMapCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // One writer trims at a time; the others carry on and leave the map briefly over the bound
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public ExpiringConcurrentMapCache(String name, Duration ttl, int maxEntries) {
+        super(name, new ConcurrentHashMap<>(256), true);
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object stored = getNativeCache().get(key);
+        if (stored instanceof Entry entry && entry.isExpired(System.nanoTime())) {
+            // Only drops the entry we saw; a fresh one written in between is kept
+            getNativeCache().remove(key, stored);
+            return null;
+        }
+        return stored;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        lookup(key);
+        T value = super.get(key, valueLoader);
+        trimToSize();
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        trimToSize();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        trimToSize();
+        return existing;
+    }
+
+    /**
+     * Drop every expired entry
+     * @return number of entries removed
+     */
+    public int purgeExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map.Entry<Object, Object> stored : getNativeCache().entrySet()) {
+            if (stored.getValue() instanceof Entry entry && entry.isExpired(now)
+                    && getNativeCache().remove(stored.getKey(), entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return new Entry(super.toStoreValue(userValue), System.nanoTime() + ttlNanos);
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return super.fromStoreValue(storeValue instanceof Entry entry ? entry.value : storeValue);
+    }
+
+    private void trimToSize() {
+        if (getNativeCache().size() <= maxEntries || !trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            purgeExpired();
+            int excess = getNativeCache().size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            // Entries share one TTL, so the earliest expiry is the oldest write
+            getNativeCache().entrySet().stream()
+                .filter(stored -> stored.getValue() instanceof Entry)
+                .sorted(Comparator.comparingLong(stored -> ((Entry) stored.getValue()).expiresAt))
+                .limit(excess)
+                .toList()
+                .forEach(stored -> getNativeCache().remove(stored.getKey(), stored.getValue()));
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
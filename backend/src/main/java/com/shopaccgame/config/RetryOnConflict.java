@@ -0,0 +1,21 @@
+package com.shopaccgame.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-run a @Transactional service method in a fresh transaction when it loses an optimistic
+ * lock race (@Version conflict). Only takes effect where the method starts the transaction;
+ * inside a caller's transaction the conflict propagates to the caller's own retry.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Total attempts including the first
+     */
+    int maxAttempts() default 3;
+}
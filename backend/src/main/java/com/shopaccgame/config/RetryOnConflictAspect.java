@@ -0,0 +1,53 @@
+package com.shopaccgame.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retry for @RetryOnConflict methods. Ordered before the transaction interceptor, so
+ * every attempt begins a new transaction and reloads the rows it lost the race on.
+ */
+@Aspect
+@Component
+// Not HIGHEST_PRECEDENCE: ExposeInvocationInterceptor (HIGHEST_PRECEDENCE + 1) must run first to bind the annotation
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RetryOnConflictAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+
+    // Base backoff; doubled per attempt with jitter so the racing writers do not collide again
+    private static final long BACKOFF_MS = 20;
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The stale entities belong to the caller's persistence context; only the caller can start over
+            return joinPoint.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retryOnConflict.maxAttempts()) {
+                    logger.warn("{} still conflicting after {} attempts: {}",
+                        joinPoint.getSignature().toShortString(), attempt, e.getMessage());
+                    throw e;
+                }
+                logger.info("{} lost an optimistic lock race (attempt {}), retrying",
+                    joinPoint.getSignature().toShortString(), attempt);
+                long backoff = BACKOFF_MS << (attempt - 1);
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+            }
+        }
+    }
+}
@@ -45,6 +45,8 @@ public class SecurityConfig {
                 // Allow AccountInfo public catalog endpoints (support with/without context-path prefix)
                 .requestMatchers("/api/account-info/**").permitAll()
                 .requestMatchers("/account-info/**").permitAll()
+                .requestMatchers("/api/catalog/**").permitAll()
+                .requestMatchers("/catalog/**").permitAll()
                 .requestMatchers("/swagger-ui/**").permitAll()
                 .requestMatchers("/swagger-ui.html").permitAll()
                 .requestMatchers("/v3/api-docs/**").permitAll()
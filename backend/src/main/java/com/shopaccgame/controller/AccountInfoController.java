@@ -3,14 +3,20 @@ package com.shopaccgame.controller;
 import com.shopaccgame.dto.AccountInfoDto;
 import com.shopaccgame.dto.AccountInfoRequestDto;
 import com.shopaccgame.dto.AccountInfoWithSteamAccountsDto;
+import com.shopaccgame.dto.CursorPageDto;
 import com.shopaccgame.entity.enums.AccountType;
 import com.shopaccgame.service.AccountInfoService;
+import com.shopaccgame.service.CatalogResponseCache;
+import com.shopaccgame.service.ResponseFormats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -23,10 +29,18 @@ public class AccountInfoController {
     @Autowired
     private AccountInfoService accountInfoService;
     
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+    
+    /**
+     * Every account info as an array, streamed from a database cursor instead of built in memory
+     */
     @GetMapping
-    public ResponseEntity<List<AccountInfoDto>> getAllAccountInfos() {
-        List<AccountInfoDto> accountInfos = accountInfoService.getAllAccountInfos();
-        return ResponseEntity.ok(accountInfos);
+    public ResponseEntity<StreamingResponseBody> getAllAccountInfos(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType format = ResponseFormats.negotiate(accept);
+        StreamingResponseBody body = out -> accountInfoService.writeAllAccountInfos(out, format);
+        return ResponseEntity.ok().contentType(format).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(body);
     }
     
     @GetMapping("/page")
@@ -38,6 +52,17 @@ public class AccountInfoController {
         return ResponseEntity.ok(accountInfos);
     }
     
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDto<AccountInfoDto>> getAccountInfosByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(accountInfoService.getAccountInfosAfter(after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/type/{accountType}")
     public ResponseEntity<Page<AccountInfoDto>> getAccountInfosByType(
             @PathVariable AccountType accountType,
@@ -90,10 +115,11 @@ public class AccountInfoController {
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<AccountInfoDto>> getAvailableAccountInfos() {
-        System.out.println("[AccountInfoController] getAvailableAccountInfos called");
-        List<AccountInfoDto> accountInfos = accountInfoService.getAvailableAccountInfos();
-        return ResponseEntity.ok(accountInfos);
+    public ResponseEntity<byte[]> getAvailableAccountInfos(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.respond("account-info:available", accept, acceptEncoding,
+            accountInfoService::getAvailableAccountInfos);
     }
     
     @GetMapping("/available/type/{accountType}")
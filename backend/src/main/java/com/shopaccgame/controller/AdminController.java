@@ -10,7 +10,10 @@ import com.shopaccgame.dto.DeliveryRequestDto;
 import com.shopaccgame.entity.enums.AccountStockStatus;
 
 import com.shopaccgame.service.AdminService;
+import com.shopaccgame.service.EntityCacheService;
+import com.shopaccgame.service.ResponseFormats;
 import com.shopaccgame.service.SteamAccountServiceNew;
+import com.shopaccgame.service.UserBalanceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,12 +22,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin")
@@ -40,6 +48,12 @@ public class AdminController {
     @Autowired
     private SteamAccountServiceNew steamAccountService;
     
+    @Autowired
+    private EntityCacheService entityCacheService;
+    
+    @Autowired
+    private UserBalanceService userBalanceService;
+    
     /**
      * Get all orders for admin management
      */
@@ -143,6 +157,26 @@ public class AdminController {
         }
     }
     
+    /**
+     * Manually credit (positive amount) or debit (negative amount) a user's balance; recorded in the balance ledger
+     */
+    @PostMapping("/users/{username}/balance/adjust")
+    public ResponseEntity<Map<String, Object>> adjustUserBalance(@PathVariable String username,
+                                                                 @RequestBody Map<String, String> request) {
+        try {
+            String note = request.get("note");
+            if (note == null || note.isBlank() || note.length() > 64) {
+                throw new IllegalArgumentException("A note of at most 64 characters is required");
+            }
+            BigDecimal amount = new BigDecimal(request.get("amount"));
+            BigDecimal balance = userBalanceService.adjustBalance(username, amount, note);
+            return ResponseEntity.ok(Map.of("username", username, "balance", balance));
+        } catch (Exception e) {
+            logger.error("Error adjusting balance of user {}: {}", username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", "Error adjusting balance: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get revenue statistics
      */
@@ -159,6 +193,14 @@ public class AdminController {
         }
     }
     
+    /**
+     * Hit/miss statistics of the entity caches
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+    
     /**
      * Get monthly revenue data
      */
@@ -201,14 +243,19 @@ public class AdminController {
      * Get all steam accounts for admin management (no pagination)
      */
     @GetMapping("/steam-accounts/all")
-    public ResponseEntity<List<SteamAccountAdminDto>> getAllSteamAccounts() {
-        try {
-            List<SteamAccountAdminDto> accounts = steamAccountService.getAllSteamAccountsForAdmin();
-            return ResponseEntity.ok(accounts);
-        } catch (Exception e) {
-            logger.error("Error getting all steam accounts for admin: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<StreamingResponseBody> getAllSteamAccounts(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType format = ResponseFormats.negotiate(accept);
+        // Rows are streamed after the headers are sent, so a failure can only be logged and the response cut short
+        StreamingResponseBody body = out -> {
+            try {
+                steamAccountService.writeAllSteamAccountsForAdmin(out, format);
+            } catch (Exception e) {
+                logger.error("Error streaming all steam accounts for admin: {}", e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(format).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(body);
     }
     
     /**
@@ -2,6 +2,7 @@ package com.shopaccgame.controller;
 
 import com.shopaccgame.dto.CartItemDto;
 import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.service.CartItemsUnavailableException;
 import com.shopaccgame.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
@@ -133,12 +134,17 @@ public class CartController {
     }
     
     @PostMapping("/checkout")
-    public ResponseEntity<List<OrderResponseDto>> checkoutCart() {
+    public ResponseEntity<?> checkoutCart() {
         try {
             String username = getCurrentUsername();
             log.info("Checkout cart requested by user={}", username);
             List<OrderResponseDto> orders = cartService.checkoutCart(username);
             return ResponseEntity.ok(orders);
+        } catch (CartItemsUnavailableException e) {
+            log.warn("Checkout rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "unavailableItems", e.getUnavailableItems()));
         } catch (Exception e) {
             log.error("Checkout error: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -146,12 +152,17 @@ public class CartController {
     }
     
     @PostMapping("/checkout-with-balance")
-    public ResponseEntity<List<OrderResponseDto>> checkoutCartWithBalance() {
+    public ResponseEntity<?> checkoutCartWithBalance() {
         try {
             String username = getCurrentUsername();
             log.info("Checkout with balance requested by user={}", username);
             List<OrderResponseDto> orders = cartService.checkoutCartWithBalance(username);
             return ResponseEntity.ok(orders);
+        } catch (CartItemsUnavailableException e) {
+            log.warn("Checkout with balance rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "unavailableItems", e.getUnavailableItems()));
         } catch (Exception e) {
             log.error("Checkout with balance error: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,57 @@
+package com.shopaccgame.controller;
+
+import com.shopaccgame.dto.CatalogQueryDto;
+import com.shopaccgame.dto.CatalogQueryResultDto;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/catalog")
+@CrossOrigin(origins = "*")
+public class CatalogController {
+    
+    @Autowired
+    private CatalogService catalogService;
+    
+    /**
+     * Faceted storefront search: combined filters, facet counts per dimension, answered from memory.
+     * Multi-valued parameters accept repeats or commas, e.g. accountType=ONE_GAME,MULTI_GAMES
+     */
+    @GetMapping("/query")
+    public ResponseEntity<CatalogQueryResultDto> query(
+            @RequestParam(required = false) Set<AccountType> accountType,
+            @RequestParam(required = false) Set<AccountClassification> classify,
+            @RequestParam(required = false) Set<AccountStockStatus> stockStatus,
+            @RequestParam(required = false) Set<Long> gameIds,
+            @RequestParam(defaultValue = "any") String gameMatch,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer minDiscount,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setAccountTypes(accountType);
+        query.setClassifications(classify);
+        query.setStockStatuses(stockStatus);
+        query.setGameIds(gameIds);
+        query.setMatchAllGames("all".equalsIgnoreCase(gameMatch));
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setMinDiscount(minDiscount);
+        query.setSortBy(sortBy);
+        query.setSortDir(sortDir);
+        query.setPage(page);
+        query.setSize(size);
+        return ResponseEntity.ok(catalogService.query(query));
+    }
+}
@@ -4,12 +4,15 @@ import com.shopaccgame.dto.GameDto;
 import com.shopaccgame.dto.GamePageResponseDto;
 import com.shopaccgame.dto.GameRequestDto;
 import com.shopaccgame.entity.Game;
+import com.shopaccgame.repository.projection.GameNameView;
+import com.shopaccgame.service.CatalogResponseCache;
 import com.shopaccgame.service.GameService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,6 +29,9 @@ public class GameController {
     @Autowired
     private GameService gameService;
     
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+    
     @GetMapping("/")
     public ResponseEntity<GamePageResponseDto> getAllGames(
             @RequestParam(defaultValue = "0") int page,
@@ -42,15 +48,19 @@ public class GameController {
         return getAllGames(page, size);
     }
     
+    /**
+     * Every game as JSON, Smile or CBOR; the serialized (and gzipped) body is reused until the catalog changes
+     */
     @GetMapping("/all")
-    public ResponseEntity<List<GameDto>> getAllGames() {
-        List<GameDto> games = gameService.getAllGames();
-        return ResponseEntity.ok(games);
+    public ResponseEntity<byte[]> getAllGames(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.respond("games:all", accept, acceptEncoding, gameService::getAllGames);
     }
     
     @GetMapping("/names")
     public ResponseEntity<List<Map<String, Object>>> getAllGameNames() {
-        List<GameDto> games = gameService.getAllGames();
+        List<GameNameView> games = gameService.getGameNames();
         List<Map<String, Object>> gameNames = games.stream()
                 .map(game -> {
                     Map<String, Object> gameMap = new HashMap<>();
@@ -62,6 +72,25 @@ public class GameController {
         return ResponseEntity.ok(gameNames);
     }
     
+    /**
+     * Autocomplete over game names; answered from an in-memory prefix index, never the database
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Map<String, Object>>> suggestGames(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<GameNameView> games = gameService.suggestGames(q, Math.min(Math.max(limit, 1), 50));
+        List<Map<String, Object>> suggestions = games.stream()
+                .map(game -> {
+                    Map<String, Object> gameMap = new HashMap<>();
+                    gameMap.put("id", game.getId());
+                    gameMap.put("name", game.getName());
+                    return gameMap;
+                })
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(suggestions);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<GameDto> getGameById(@PathVariable Long id) {
         GameDto game = gameService.getGameDtoById(id);
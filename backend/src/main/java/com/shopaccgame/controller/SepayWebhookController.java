@@ -1,8 +1,9 @@
 package com.shopaccgame.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopaccgame.dto.SepayWebhookDto;
-import com.shopaccgame.service.SteamAccountOrderService;
-import com.shopaccgame.service.WalletDepositService;
+import com.shopaccgame.service.WebhookInboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.Map;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/sepay/webhook")
@@ -24,20 +22,30 @@ public class SepayWebhookController {
     private static final Logger logger = LoggerFactory.getLogger(SepayWebhookController.class);
     
     @Autowired
-    private SteamAccountOrderService orderService;
+    private WebhookInboxService webhookInboxService;
     @Autowired
-    private WalletDepositService walletDepositService;
+    private ObjectMapper objectMapper;
     
     /**
      * Handle payment webhook from sepay.vn
-     * This endpoint receives payment confirmations and updates order status
+     * The payment is validated and stored in the webhook inbox; orders and deposits are marked paid
+     * asynchronously by WebhookInboxService, so the response does not wait on order processing
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> handlePaymentWebhook(@RequestBody SepayWebhookDto webhookData) {
-        logger.info("Received payment webhook from sepay.vn: {}", webhookData);
-        
+    public ResponseEntity<Map<String, Object>> handlePaymentWebhook(@RequestBody String payload) {
         Map<String, Object> response = new HashMap<>();
         
+        SepayWebhookDto webhookData;
+        try {
+            webhookData = objectMapper.readValue(payload, SepayWebhookDto.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Invalid webhook payload: {}", e.getOriginalMessage());
+            response.put("success", false);
+            response.put("message", "Invalid webhook data: malformed JSON");
+            return ResponseEntity.badRequest().body(response);
+        }
+        logger.info("Received payment webhook from sepay.vn: {}", webhookData);
+        
         try {
             // Validate webhook data
             if (webhookData.getId() == null) {
@@ -72,12 +80,7 @@ public class SepayWebhookController {
             }
             
             // Aggregate references from code/content/referenceCode/description
-            Set<String> referencesSet = new HashSet<>();
-            addAllExtractedReferences(referencesSet, normalizeNullableString(webhookData.getCode()));
-            addAllExtractedReferences(referencesSet, normalizeNullableString(webhookData.getContent()));
-            addAllExtractedReferences(referencesSet, normalizeNullableString(webhookData.getReferenceCode()));
-            addAllExtractedReferences(referencesSet, normalizeNullableString(webhookData.getDescription()));
-            List<String> references = new ArrayList<>(referencesSet);
+            List<String> references = WebhookInboxService.extractReferences(webhookData);
             
             if (references.isEmpty()) {
                 logger.error("Invalid webhook data: could not extract reference from any field (code/content/referenceCode/description)");
@@ -86,46 +89,21 @@ public class SepayWebhookController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Process payments - support multiple orders (ORD...) and deposits (DEP... or DNT...)
-            List<String> ordersPaid = new ArrayList<>();
-            List<String> depositsPaid = new ArrayList<>();
-            List<String> unknownReferences = new ArrayList<>();
-            for (String ref : references) {
-                try {
-                    if (ref.startsWith("ORD")) {
-                        orderService.markOrderAsPaid(ref);
-                        logger.info("Payment confirmed for order: {} with transaction ID: {}", ref, webhookData.getId());
-                        ordersPaid.add(ref);
-                    } else if (ref.startsWith("DEP") || ref.startsWith("DNT")) {
-                        walletDepositService.markDepositPaid(ref);
-                        logger.info("Payment confirmed for deposit: {} with transaction ID: {}", ref, webhookData.getId());
-                        depositsPaid.add(ref);
-                    } else {
-                        logger.warn("Unknown reference prefix for webhook: {}", ref);
-                        unknownReferences.add(ref);
-                    }
-                } catch (Exception ex) {
-                    logger.error("Failed processing reference {} for transaction {}: {}", ref, webhookData.getId(), ex.getMessage(), ex);
-                    unknownReferences.add(ref);
-                }
-            }
+            // Store for the inbox workers; a redelivered transaction is acknowledged again without a second copy
+            boolean queued = webhookInboxService.enqueue(String.valueOf(webhookData.getId()), payload);
             
             response.put("success", true);
-            response.put("message", "Payment processed successfully");
+            response.put("message", queued ? "Payment received" : "Payment already received");
             response.put("transaction_id", webhookData.getId());
             response.put("amount", webhookData.getTransferAmount());
             response.put("gateway", webhookData.getGateway());
             response.put("reference_code", webhookData.getReferenceCode());
-            response.put("orders_paid", ordersPaid);
-            response.put("deposits_paid", depositsPaid);
-            if (!unknownReferences.isEmpty()) {
-                response.put("unknown_references", unknownReferences);
-            }
+            response.put("references", references);
             
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
-            logger.error("Error processing payment webhook for transaction: {}", 
+            logger.error("Error storing payment webhook for transaction: {}", 
                 webhookData.getId(), e);
             
             Map<String, Object> error = new HashMap<>();
@@ -146,36 +124,4 @@ public class SepayWebhookController {
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
-    
-    /**
-     * Extract all order/deposit IDs from a content field using regex pattern
-     * Looks for tokens like: ORD\d+, DEP\d+, DNT\d+
-     */
-    private List<String> extractAllOrderOrDepositFromContent(String content) {
-        List<String> refs = new ArrayList<>();
-        if (content == null || content.isEmpty()) {
-            return refs;
-        }
-        
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("(ORD|DEP|DNT)\\d+");
-        java.util.regex.Matcher matcher = pattern.matcher(content);
-        while (matcher.find()) {
-            refs.add(matcher.group());
-        }
-        return refs;
-    }
-
-    private void addAllExtractedReferences(Set<String> accumulator, String content) {
-        if (content == null) return;
-        List<String> refs = extractAllOrderOrDepositFromContent(content);
-        accumulator.addAll(refs);
-    }
-
-    private String normalizeNullableString(String value) {
-        if (value == null) return null;
-        String trimmed = value.trim();
-        if (trimmed.isEmpty()) return null;
-        if ("null".equalsIgnoreCase(trimmed)) return null;
-        return trimmed;
-    }
 }
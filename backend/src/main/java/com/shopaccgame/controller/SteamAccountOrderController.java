@@ -1,5 +1,6 @@
 package com.shopaccgame.controller;
 
+import com.shopaccgame.dto.CursorPageDto;
 import com.shopaccgame.dto.OrderRequestDto;
 import com.shopaccgame.dto.OrderResponseDto;
 import com.shopaccgame.service.SteamAccountOrderService;
@@ -97,6 +98,23 @@ public class SteamAccountOrderController {
         }
     }
     
+    /**
+     * Get user's orders with keyset pagination (stable under concurrent inserts)
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDto<OrderResponseDto>> getUserOrdersByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            String username = getCurrentUsername();
+            CursorPageDto<OrderResponseDto> orders = orderService.getUserOrdersAfter(username, after, size);
+            return ResponseEntity.ok(orders);
+        } catch (Exception e) {
+            logger.error("Error getting user orders by cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * Get all user's orders (for profile page)
      */
@@ -1,8 +1,10 @@
 package com.shopaccgame.controller;
 
+import com.shopaccgame.dto.CursorPageDto;
 import com.shopaccgame.dto.SteamAccountDto;
 import com.shopaccgame.entity.enums.AccountType;
 import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.service.CatalogResponseCache;
 import com.shopaccgame.service.SteamAccountServiceNew;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
@@ -10,7 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,6 +32,9 @@ public class SteamAccountPublicController {
 
     @Autowired
     private SteamCheckerService steamCheckerService;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
     
     @GetMapping
     public ResponseEntity<Page<SteamAccountDto>> getAvailableSteamAccounts(
@@ -38,35 +43,35 @@ public class SteamAccountPublicController {
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = steamAccountService.createListingPageable(page, size, sortBy, sortDir);
         
         // Only return available accounts for public access
-        List<SteamAccountDto> availableAccounts = steamAccountService.getAvailableSteamAccounts();
-        
-        // Convert to page format
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), availableAccounts.size());
-        
-        Page<SteamAccountDto> pageResult;
-        if (start < availableAccounts.size()) {
-            pageResult = new org.springframework.data.domain.PageImpl<>(
-                availableAccounts.subList(start, end), 
-                pageable, 
-                availableAccounts.size()
-            );
-        } else {
-            pageResult = new org.springframework.data.domain.PageImpl<>(List.of(), pageable, 0);
-        }
+        Page<SteamAccountDto> pageResult = steamAccountService.getAvailableSteamAccounts(pageable);
         
         return ResponseEntity.ok(pageResult);
     }
     
+    /**
+     * Keyset-paginated listing for infinite scroll; pass nextCursor from the previous page as after
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDto<SteamAccountDto>> getAvailableSteamAccountsByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "12") int size) {
+        try {
+            return ResponseEntity.ok(steamAccountService.getAvailableSteamAccountsAfter(after, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected steam account cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/all")
-    public ResponseEntity<List<SteamAccountDto>> getAllAvailableSteamAccounts() {
-        List<SteamAccountDto> accounts = steamAccountService.getAvailableSteamAccounts();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<byte[]> getAllAvailableSteamAccounts(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogResponseCache.respond("steam-accounts:all", accept, acceptEncoding,
+            steamAccountService::getAvailableSteamAccounts);
     }
 
     @PostMapping("/{id}/validate")
@@ -98,25 +103,12 @@ public class SteamAccountPublicController {
     public ResponseEntity<Page<SteamAccountDto>> getAvailableSteamAccountsByType(
             @PathVariable AccountType accountType,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
-        
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        List<SteamAccountDto> accounts = steamAccountService.getAvailableSteamAccountsByType(accountType.toString());
-        
-        // Convert to page format
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), accounts.size());
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
         
-        Page<SteamAccountDto> pageResult;
-        if (start < accounts.size()) {
-            pageResult = new org.springframework.data.domain.PageImpl<>(
-                accounts.subList(start, end), 
-                pageable, 
-                accounts.size()
-            );
-        } else {
-            pageResult = new org.springframework.data.domain.PageImpl<>(List.of(), pageable, 0);
-        }
+        Pageable pageable = steamAccountService.createListingPageable(page, size, sortBy, sortDir);
+        Page<SteamAccountDto> pageResult = steamAccountService.getAvailableSteamAccountsByType(accountType, pageable);
         
         return ResponseEntity.ok(pageResult);
     }
@@ -127,28 +119,9 @@ public class SteamAccountPublicController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        Page<SteamAccountDto> accounts = steamAccountService.searchSteamAccounts(q, pageable);
-        
-        // Filter to show in-stock accounts
-        List<SteamAccountDto> availableAccounts = accounts.getContent().stream()
-            .filter(account -> account.getStatus() == AccountStockStatus.IN_STOCK)
-            .toList();
-        
-        // Convert to page format
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), availableAccounts.size());
-        
-        Page<SteamAccountDto> pageResult;
-        if (start < availableAccounts.size()) {
-            pageResult = new org.springframework.data.domain.PageImpl<>(
-                availableAccounts.subList(start, end), 
-                pageable, 
-                availableAccounts.size()
-            );
-        } else {
-            pageResult = new org.springframework.data.domain.PageImpl<>(List.of(), pageable, 0);
-        }
+        // Newest first; ordering is fixed in the search query
+        Pageable pageable = PageRequest.of(page, size);
+        Page<SteamAccountDto> pageResult = steamAccountService.searchAvailableSteamAccounts(q, pageable);
         
         return ResponseEntity.ok(pageResult);
     }
@@ -157,25 +130,12 @@ public class SteamAccountPublicController {
     public ResponseEntity<Page<SteamAccountDto>> searchAvailableSteamAccountsByGame(
             @RequestParam String gameName,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
-        
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        List<SteamAccountDto> accounts = steamAccountService.getAvailableAccountsByGameName(gameName);
-        
-        // Convert to page format
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), accounts.size());
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
         
-        Page<SteamAccountDto> pageResult;
-        if (start < accounts.size()) {
-            pageResult = new org.springframework.data.domain.PageImpl<>(
-                accounts.subList(start, end), 
-                pageable, 
-                accounts.size()
-            );
-        } else {
-            pageResult = new org.springframework.data.domain.PageImpl<>(List.of(), pageable, 0);
-        }
+        Pageable pageable = steamAccountService.createListingPageable(page, size, sortBy, sortDir);
+        Page<SteamAccountDto> pageResult = steamAccountService.getAvailableAccountsByGameName(gameName, pageable);
         
         return ResponseEntity.ok(pageResult);
     }
@@ -4,6 +4,7 @@ import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.enums.AccountType;
 import com.shopaccgame.entity.enums.AccountClassification;
 import com.shopaccgame.entity.Game;
+import com.shopaccgame.repository.projection.AccountInfoSummaryView;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -53,6 +54,25 @@ public class AccountInfoDto {
         }
     }
     
+    // Summary built from a column projection instead of the entity graph
+    public AccountInfoDto(AccountInfoSummaryView summary, Set<GameDto> games) {
+        this.id = summary.getId();
+        this.name = summary.getName();
+        this.description = summary.getDescription();
+        this.imageUrl = summary.getImageUrl();
+        this.accountType = summary.getAccountType();
+        this.price = summary.getPrice();
+        this.discountPercentage = summary.getDiscountPercentage();
+        this.originalPrice = summary.getOriginalPrice();
+        this.updatedAt = summary.getUpdatedAt();
+        this.classify = summary.getClassify();
+        this.availableStockCount = summary.getAvailableStock() != null ? summary.getAvailableStock() : 0L;
+        this.games = games;
+        this.gameIds = games.stream()
+            .map(GameDto::getId)
+            .collect(Collectors.toSet());
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
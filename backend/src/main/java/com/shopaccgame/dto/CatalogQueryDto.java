@@ -0,0 +1,125 @@
+package com.shopaccgame.dto;
+
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Combined storefront filters for /catalog/query. Empty or null dimensions do not filter;
+ * values inside one dimension are OR-ed, except games when matchAllGames is set.
+ */
+public class CatalogQueryDto {
+
+    private Set<AccountType> accountTypes;
+    private Set<AccountClassification> classifications;
+    private Set<AccountStockStatus> stockStatuses;
+    private Set<Long> gameIds;
+    private boolean matchAllGames;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minDiscount;
+    private String sortBy;
+    private String sortDir;
+    private int page;
+    private int size = 12;
+
+    // Getters and Setters
+    public Set<AccountType> getAccountTypes() {
+        return accountTypes;
+    }
+
+    public void setAccountTypes(Set<AccountType> accountTypes) {
+        this.accountTypes = accountTypes;
+    }
+
+    public Set<AccountClassification> getClassifications() {
+        return classifications;
+    }
+
+    public void setClassifications(Set<AccountClassification> classifications) {
+        this.classifications = classifications;
+    }
+
+    public Set<AccountStockStatus> getStockStatuses() {
+        return stockStatuses;
+    }
+
+    public void setStockStatuses(Set<AccountStockStatus> stockStatuses) {
+        this.stockStatuses = stockStatuses;
+    }
+
+    public Set<Long> getGameIds() {
+        return gameIds;
+    }
+
+    public void setGameIds(Set<Long> gameIds) {
+        this.gameIds = gameIds;
+    }
+
+    public boolean isMatchAllGames() {
+        return matchAllGames;
+    }
+
+    public void setMatchAllGames(boolean matchAllGames) {
+        this.matchAllGames = matchAllGames;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getMinDiscount() {
+        return minDiscount;
+    }
+
+    public void setMinDiscount(Integer minDiscount) {
+        this.minDiscount = minDiscount;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public String getSortDir() {
+        return sortDir;
+    }
+
+    public void setSortDir(String sortDir) {
+        this.sortDir = sortDir;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
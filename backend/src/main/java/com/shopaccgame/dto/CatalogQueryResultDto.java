@@ -0,0 +1,128 @@
+package com.shopaccgame.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of listings matching a CatalogQueryDto, with facet counts per dimension.
+ * A dimension's counts apply every other active filter but not its own, so selecting
+ * one account type still shows how many listings the other types would add.
+ */
+public class CatalogQueryResultDto {
+
+    private List<AccountInfoDto> content;
+    private int pageNumber;
+    private int pageSize;
+    private long totalElements;
+    private int totalPages;
+    private Map<String, List<FacetCount>> facets;
+    private long catalogVersion;
+
+    public CatalogQueryResultDto() {}
+
+    public CatalogQueryResultDto(List<AccountInfoDto> content, int pageNumber, int pageSize, long totalElements,
+                                 Map<String, List<FacetCount>> facets, long catalogVersion) {
+        this.content = content;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.totalElements = totalElements;
+        this.totalPages = pageSize > 0 ? (int) ((totalElements + pageSize - 1) / pageSize) : 0;
+        this.facets = facets;
+        this.catalogVersion = catalogVersion;
+    }
+
+    public static class FacetCount {
+        private String value;
+        private String label;
+        private long count;
+
+        public FacetCount() {}
+
+        public FacetCount(String value, String label, long count) {
+            this.value = value;
+            this.label = label;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    // Getters and Setters
+    public List<AccountInfoDto> getContent() {
+        return content;
+    }
+
+    public void setContent(List<AccountInfoDto> content) {
+        this.content = content;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(int pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, List<FacetCount>> facets) {
+        this.facets = facets;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+}
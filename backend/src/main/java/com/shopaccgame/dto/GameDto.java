@@ -1,6 +1,7 @@
 package com.shopaccgame.dto;
 
 import com.shopaccgame.entity.Game;
+import com.shopaccgame.repository.projection.AccountGameView;
 
 import java.time.LocalDateTime;
 
@@ -22,6 +23,13 @@ public class GameDto {
         this.updatedAt = game.getUpdatedAt();
     }
 
+    // Chip form used by listing projections (no description)
+    public GameDto(AccountGameView view) {
+        this.id = view.getId();
+        this.name = view.getName();
+        this.imageUrl = view.getImageUrl();
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
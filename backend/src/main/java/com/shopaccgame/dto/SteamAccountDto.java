@@ -3,6 +3,7 @@ package com.shopaccgame.dto;
 import com.shopaccgame.entity.SteamAccount;
 import com.shopaccgame.entity.enums.AccountStockStatus;
 import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.projection.SteamAccountCardView;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -66,6 +67,25 @@ public class SteamAccountDto {
         this.stockQuantity = steamAccount.getAccountInfo().getAvailableStockCount();
     }
     
+    // Storefront card built from a column projection; credentials are never selected
+    public SteamAccountDto(SteamAccountCardView card, List<GameDto> games) {
+        this.id = card.getId();
+        this.accountInfoId = card.getAccountInfoId();
+        this.accountCode = card.getAccountCode();
+        this.status = card.getStatus();
+        this.verifyDate = card.getVerifyDate();
+        this.updatedAt = card.getUpdatedAt();
+        this.name = card.getName();
+        this.description = card.getDescription();
+        this.imageUrl = card.getImageUrl();
+        this.accountType = card.getAccountType();
+        this.price = card.getPrice();
+        this.discountPercentage = card.getDiscountPercentage();
+        this.originalPrice = card.getOriginalPrice();
+        this.games = games;
+        this.stockQuantity = card.getStockQuantity();
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -0,0 +1,38 @@
+package com.shopaccgame.dto;
+
+/**
+ * A cart item checkout could not fill: how many units were requested and how many were available
+ */
+public class UnavailableCartItemDto {
+
+    private Long cartItemId;
+    private Long accountInfoId;
+    private String accountInfoName;
+    private int requested;
+    private int available;
+
+    public UnavailableCartItemDto() {}
+
+    public UnavailableCartItemDto(Long cartItemId, Long accountInfoId, String accountInfoName, int requested, int available) {
+        this.cartItemId = cartItemId;
+        this.accountInfoId = accountInfoId;
+        this.accountInfoName = accountInfoName;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public Long getCartItemId() { return cartItemId; }
+    public void setCartItemId(Long cartItemId) { this.cartItemId = cartItemId; }
+
+    public Long getAccountInfoId() { return accountInfoId; }
+    public void setAccountInfoId(Long accountInfoId) { this.accountInfoId = accountInfoId; }
+
+    public String getAccountInfoName() { return accountInfoName; }
+    public void setAccountInfoName(String accountInfoName) { this.accountInfoName = accountInfoName; }
+
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public int getAvailable() { return available; }
+    public void setAvailable(int available) { this.available = available; }
+}
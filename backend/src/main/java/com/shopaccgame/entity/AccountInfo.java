@@ -3,6 +3,7 @@ package com.shopaccgame.entity;
 import com.shopaccgame.entity.enums.AccountType;
 import com.shopaccgame.entity.enums.AccountClassification;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -45,12 +46,19 @@ public class AccountInfo {
     @Column(name = "classify", nullable = false)
     private AccountClassification classify = AccountClassification.STOCK;
     
+    // Denormalized count of IN_STOCK steam accounts, maintained only by SQL (see AccountStockService)
+    @Column(name = "available_stock", nullable = false, insertable = false, updatable = false)
+    private long availableStock;
+    
     // One-to-Many relationship with SteamAccount
     @OneToMany(mappedBy = "accountInfo", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private Set<SteamAccount> steamAccounts = new HashSet<>();
     
     // Many-to-Many relationship with Game
+    // Batch-initialized so paged listings (which cannot fetch-join a collection) load games in one extra query
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
         name = "account_games",
         joinColumns = @JoinColumn(name = "account_info_id"),
@@ -186,9 +194,12 @@ public class AccountInfo {
     
     // Get available stock count
     public long getAvailableStockCount() {
-        return steamAccounts.stream()
-            .filter(account -> account.getStatus() == com.shopaccgame.entity.enums.AccountStockStatus.IN_STOCK)
-            .count();
+        return availableStock;
+    }
+    
+    // Mirror a count AccountStockService just wrote with SQL; the column itself is never written from here
+    public void setAvailableStockCount(long availableStock) {
+        this.availableStock = availableStock;
     }
     
     @PreUpdate
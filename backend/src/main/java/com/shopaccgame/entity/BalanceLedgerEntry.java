@@ -0,0 +1,68 @@
+package com.shopaccgame.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One signed change to a user's balance. Entries are only ever inserted; the current balance
+ * is the user's latest snapshot plus the entries after it.
+ */
+@Entity
+@Table(name = "balance_ledger")
+public class BalanceLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Positive for credits, negative for debits
+    @Column(name = "amount", precision = 12, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private Type type;
+
+    // Deposit id, order id or adjustment note
+    @Column(name = "reference", length = 64)
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        // Balance carried over from before the ledger
+        OPENING,
+        DEPOSIT,
+        PURCHASE,
+        REFUND,
+        ADJUSTMENT
+    }
+
+    public BalanceLedgerEntry() {}
+
+    public BalanceLedgerEntry(User user, BigDecimal amount, Type type, String reference) {
+        this.user = user;
+        this.amount = amount;
+        this.type = type;
+        this.reference = reference;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+
+    public User getUser() { return user; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public Type getType() { return type; }
+
+    public String getReference() { return reference; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
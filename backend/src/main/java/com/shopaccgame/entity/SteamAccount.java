@@ -6,8 +6,16 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "steam_accounts")
+@NamedEntityGraph(
+    name = SteamAccount.GRAPH_ACCOUNT_INFO_GAMES,
+    attributeNodes = @NamedAttributeNode(value = "accountInfo", subgraph = "accountInfo.games"),
+    subgraphs = @NamedSubgraph(name = "accountInfo.games", attributeNodes = @NamedAttributeNode("games"))
+)
 public class SteamAccount {
     
+    // Loads SteamAccount -> AccountInfo -> Game in one statement for list finders that feed DTOs
+    public static final String GRAPH_ACCOUNT_INFO_GAMES = "SteamAccount.accountInfoGames";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -38,6 +46,11 @@ public class SteamAccount {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic lock: admin edits, checkout and order expiry must not overwrite each other's status changes
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     // Constructors
     public SteamAccount() {}
     
@@ -128,6 +141,10 @@ public class SteamAccount {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
     @PrePersist
     protected void onCreate() {
         this.updatedAt = LocalDateTime.now();
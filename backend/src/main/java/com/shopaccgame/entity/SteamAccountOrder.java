@@ -6,6 +6,7 @@ import com.shopaccgame.entity.enums.OrderStatus;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 @Entity
@@ -48,7 +49,13 @@ public class SteamAccountOrder {
     
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
-
+    
+    // Optimistic lock: payment webhooks, admin actions and scheduled expiry race on status
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    private static final AtomicLong LAST_ORDER_MILLIS = new AtomicLong();
     
     // Constructors
     public SteamAccountOrder() {}
@@ -186,9 +193,15 @@ public class SteamAccountOrder {
         this.expiresAt = expiresAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
     // Generate unique order ID with timestamp format
-    private String generateOrderId() {
-        return "ORD" + System.currentTimeMillis();
+    private static String generateOrderId() {
+        // Timestamp format, moved forward a millisecond when orders (e.g. a batch checkout) are created within the same one
+        long millis = LAST_ORDER_MILLIS.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        return "ORD" + millis;
     }
     
     // Update order ID with the actual entity ID after persistence (no longer needed)
@@ -73,6 +73,11 @@ public class User implements UserDetails {
     @Column(name = "balance", precision = 12, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
     
+    // Optimistic lock for entity updates; the atomic balance UPDATE in UserRepository bumps it too
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -243,4 +248,8 @@ public class User implements UserDetails {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
 }
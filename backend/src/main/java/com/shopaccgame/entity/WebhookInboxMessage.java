@@ -0,0 +1,68 @@
+package com.shopaccgame.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A payment webhook as received, waiting to be applied by WebhookInboxService
+ */
+@Entity
+@Table(name = "webhook_inbox")
+public class WebhookInboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id", unique = true, nullable = false, length = 64)
+    private String transactionId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // When a worker may pick the message up next; pushed forward while a worker holds it
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        PROCESSED,
+        FAILED
+    }
+
+    public WebhookInboxMessage() {}
+
+    public Long getId() { return id; }
+
+    public String getTransactionId() { return transactionId; }
+
+    public String getPayload() { return payload; }
+
+    public Status getStatus() { return status; }
+
+    public int getAttempts() { return attempts; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+
+    public String getLastError() { return lastError; }
+}
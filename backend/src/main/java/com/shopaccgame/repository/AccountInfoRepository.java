@@ -2,15 +2,23 @@ package com.shopaccgame.repository;
 
 import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.projection.AccountGameView;
+import com.shopaccgame.repository.projection.AccountInfoSummaryView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountInfoRepository extends JpaRepository<AccountInfo, Long> {
@@ -19,18 +27,67 @@ public interface AccountInfoRepository extends JpaRepository<AccountInfo, Long>
     
     Page<AccountInfo> findByAccountType(AccountType accountType, Pageable pageable);
     
-    @Query("SELECT ai FROM AccountInfo ai WHERE ai.name LIKE %:searchTerm% OR ai.description LIKE %:searchTerm%")
-    Page<AccountInfo> findBySearchTerm(@Param("searchTerm") String searchTerm, Pageable pageable);
+    // Keyset page, newest first; beforeId is exclusive
+    @Query("SELECT ai FROM AccountInfo ai WHERE ai.id < :beforeId ORDER BY ai.id DESC")
+    List<AccountInfo> findBefore(@Param("beforeId") Long beforeId, Pageable pageable);
     
-    @Query("SELECT ai FROM AccountInfo ai JOIN ai.steamAccounts sa WHERE sa.status = 'IN_STOCK'")
+    // Server-side cursor for full exports; fetch size keeps the driver from buffering the whole table
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ai FROM AccountInfo ai ORDER BY ai.id")
+    Stream<AccountInfo> streamAll();
+    
+    // Relevance search over name and description; parameters as in GameRepository.SEARCH_MATCH
+    String SEARCH_MATCH = "FROM account_info ai WHERE ai.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                   "OR f_unaccent(lower(ai.name)) % f_unaccent(lower(:term)) " +
+                   "OR f_unaccent(lower(ai.name)) LIKE '%' || f_unaccent(lower(:term)) || '%' ";
+    
+    @Query(value = "SELECT ai.* " + SEARCH_MATCH +
+                   "ORDER BY ts_rank(ai.search_vector, to_tsquery('simple', f_unaccent(:tsQuery))) " +
+                   "+ similarity(f_unaccent(lower(ai.name)), f_unaccent(lower(:term))) DESC, ai.id",
+           countQuery = "SELECT COUNT(*) " + SEARCH_MATCH,
+           nativeQuery = true)
+    Page<AccountInfo> searchByRelevance(@Param("term") String term, @Param("tsQuery") String tsQuery, Pageable pageable);
+    
+    @Query("SELECT ai FROM AccountInfo ai WHERE ai.availableStock > 0")
     List<AccountInfo> findAvailableAccountInfos();
     
-    @Query("SELECT ai FROM AccountInfo ai JOIN ai.steamAccounts sa WHERE ai.accountType = :accountType AND sa.status = 'IN_STOCK'")
+    @Query("SELECT ai FROM AccountInfo ai WHERE ai.accountType = :accountType AND ai.availableStock > 0")
     List<AccountInfo> findAvailableAccountInfosByType(@Param("accountType") AccountType accountType);
     
+    String SUMMARY_SELECT = "SELECT ai.id AS id, ai.name AS name, ai.description AS description, ai.imageUrl AS imageUrl, ai.accountType AS accountType, ai.price AS price, " +
+                   "ai.discountPercentage AS discountPercentage, ai.originalPrice AS originalPrice, ai.updatedAt AS updatedAt, " +
+                   "ai.classify AS classify, ai.availableStock AS availableStock " +
+                   "FROM AccountInfo ai ";
+    
+    @Query(SUMMARY_SELECT + "WHERE ai.id IN :ids")
+    List<AccountInfoSummaryView> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(SUMMARY_SELECT + "WHERE ai.id = :id")
+    Optional<AccountInfoSummaryView> findSummaryById(@Param("id") Long id);
+    
+    // Game chips for a batch of listings in one query
+    @Query("SELECT ai.id AS accountInfoId, g.id AS id, g.name AS name, g.imageUrl AS imageUrl " +
+           "FROM AccountInfo ai JOIN ai.games g WHERE ai.id IN :accountInfoIds")
+    List<AccountGameView> findGameViewsByAccountInfoIds(@Param("accountInfoIds") Collection<Long> accountInfoIds);
+    
     @Query("SELECT COUNT(sa) FROM SteamAccount sa WHERE sa.accountInfo.id = :accountInfoId AND sa.status = 'IN_STOCK'")
     long countAvailableSteamAccountsByAccountInfoId(@Param("accountInfoId") Long accountInfoId);
     
-    @Query("SELECT DISTINCT ai FROM AccountInfo ai JOIN ai.games g WHERE g.name LIKE %:gameName%")
-    List<AccountInfo> findByGameName(@Param("gameName") String gameName);
+    // Recount IN_STOCK accounts for one listing into account_info.available_stock and return the
+    // new count; empty when the listing does not exist. Callers flush pending steam account changes first.
+    @Query(value = "UPDATE account_info SET available_stock = " +
+                   "(SELECT COUNT(*) FROM steam_accounts sa WHERE sa.account_info_id = :accountInfoId AND sa.status = 'IN_STOCK') " +
+                   "WHERE id = :accountInfoId RETURNING available_stock", nativeQuery = true)
+    Optional<Long> refreshAvailableStock(@Param("accountInfoId") Long accountInfoId);
+    
+    // Repair every listing whose available_stock drifted from the real count; returns rows fixed
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE account_info ai SET available_stock = counts.in_stock " +
+                   "FROM (SELECT a.id, COUNT(sa.id) FILTER (WHERE sa.status = 'IN_STOCK') AS in_stock " +
+                   "      FROM account_info a LEFT JOIN steam_accounts sa ON sa.account_info_id = a.id GROUP BY a.id) counts " +
+                   "WHERE ai.id = counts.id AND ai.available_stock <> counts.in_stock", nativeQuery = true)
+    int reconcileAvailableStock();
 }
@@ -0,0 +1,53 @@
+package com.shopaccgame.repository;
+
+import com.shopaccgame.entity.BalanceLedgerEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Inserts many ledger entries as one JDBC batch, for the same reason as SteamAccountOrderBatchWriter:
+ * Hibernate cannot batch inserts of IDENTITY entities. Used when one balance UPDATE pays for a cart.
+ */
+@Repository
+public class BalanceLedgerBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO balance_ledger " +
+        "(user_id, amount, entry_type, reference, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Timestamps are bound the way Hibernate binds them, so both write the same wall-clock values
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}")
+    private String jdbcTimeZone;
+
+    /**
+     * Must run inside the JPA transaction; the batch uses its connection
+     */
+    public void insertAll(List<BalanceLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getUser().getId());
+            ps.setBigDecimal(2, entry.getAmount());
+            ps.setString(3, entry.getType().name());
+            ps.setString(4, entry.getReference());
+            ps.setTimestamp(5, Timestamp.valueOf(entry.getCreatedAt()),
+                Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone)));
+        });
+    }
+}
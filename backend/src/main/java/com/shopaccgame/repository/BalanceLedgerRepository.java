@@ -0,0 +1,43 @@
+package com.shopaccgame.repository;
+
+import com.shopaccgame.entity.BalanceLedgerEntry;
+import com.shopaccgame.repository.projection.BalanceMismatchView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedgerEntry, Long> {
+
+    // Snapshot plus the entries after it; reads at most one snapshot row and the tail of one user's index range
+    @Query(value = "SELECT COALESCE(s.balance, 0) + COALESCE((" +
+                   "  SELECT SUM(l.amount) FROM balance_ledger l " +
+                   "  WHERE l.user_id = :userId AND l.id > COALESCE(s.last_entry_id, 0)), 0) " +
+                   "FROM (SELECT 1) one LEFT JOIN balance_snapshots s ON s.user_id = :userId", nativeQuery = true)
+    BigDecimal ledgerBalance(@Param("userId") Long userId);
+
+    // Fold every user's entries created before :cutoff into their snapshot. Entries younger than the
+    // cutoff stay in the tail, so one whose transaction commits after a higher id is never skipped.
+    @Modifying
+    @Query(value = "INSERT INTO balance_snapshots (user_id, balance, last_entry_id, taken_at) " +
+                   "SELECT l.user_id, COALESCE(s.balance, 0) + SUM(l.amount), MAX(l.id), :now " +
+                   "FROM balance_ledger l LEFT JOIN balance_snapshots s ON s.user_id = l.user_id " +
+                   "WHERE l.id > COALESCE(s.last_entry_id, 0) AND l.created_at < :cutoff " +
+                   "GROUP BY l.user_id, s.balance " +
+                   "ON CONFLICT (user_id) DO UPDATE SET balance = EXCLUDED.balance, " +
+                   "last_entry_id = EXCLUDED.last_entry_id, taken_at = EXCLUDED.taken_at", nativeQuery = true)
+    int takeSnapshots(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    // One statement, so a balance update and its ledger entry are either both visible or neither is
+    @Query(value = "SELECT u.id AS userId, u.username AS username, COALESCE(u.balance, 0) AS balance, " +
+                   "COALESCE(s.balance, 0) + COALESCE(t.tail, 0) AS ledgerBalance " +
+                   "FROM users u LEFT JOIN balance_snapshots s ON s.user_id = u.id " +
+                   "LEFT JOIN LATERAL (SELECT SUM(l.amount) AS tail FROM balance_ledger l " +
+                   "  WHERE l.user_id = u.id AND l.id > COALESCE(s.last_entry_id, 0)) t ON true " +
+                   "WHERE COALESCE(u.balance, 0) <> COALESCE(s.balance, 0) + COALESCE(t.tail, 0)", nativeQuery = true)
+    List<BalanceMismatchView> findMismatches();
+}
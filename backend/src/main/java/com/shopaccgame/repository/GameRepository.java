@@ -1,9 +1,13 @@
 package com.shopaccgame.repository;
 
 import com.shopaccgame.entity.Game;
+import com.shopaccgame.repository.projection.GameNameView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,12 +22,34 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     // Find by name with pagination (case insensitive)
     Page<Game> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
+    /*
+     * Relevance search (see V20261017_002__add_search_indexes.sql). :tsQuery is a sanitized prefix tsquery
+     * built by SearchService; :term is the raw text used for trigram similarity and substrings.
+     */
+    String SEARCH_MATCH = "FROM games g WHERE g.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                   "OR f_unaccent(lower(g.name)) % f_unaccent(lower(:term)) " +
+                   "OR f_unaccent(lower(g.name)) LIKE '%' || f_unaccent(lower(:term)) || '%' ";
+    
+    String SEARCH_RANK = "ORDER BY ts_rank(g.search_vector, to_tsquery('simple', f_unaccent(:tsQuery))) " +
+                   "+ similarity(f_unaccent(lower(g.name)), f_unaccent(lower(:term))) DESC, g.id";
+    
+    @Query(value = "SELECT g.* " + SEARCH_MATCH + SEARCH_RANK,
+           countQuery = "SELECT COUNT(*) " + SEARCH_MATCH,
+           nativeQuery = true)
+    Page<Game> searchByRelevance(@Param("term") String term, @Param("tsQuery") String tsQuery, Pageable pageable);
+    
+    @Query(value = "SELECT g.id " + SEARCH_MATCH + SEARCH_RANK + " LIMIT :limit", nativeQuery = true)
+    List<Long> searchIdsByRelevance(@Param("term") String term, @Param("tsQuery") String tsQuery, @Param("limit") int limit);
+    
     // Find by description (case insensitive)
     List<Game> findByDescriptionContainingIgnoreCase(String description);
     
     // Find by description with pagination (case insensitive)
     Page<Game> findByDescriptionContainingIgnoreCase(String description, Pageable pageable);
     
+    // Id/name pairs only, for pickers and autocomplete
+    List<GameNameView> findAllProjectedBy(Sort sort);
+    
     // Find by Steam App ID
     Optional<Game> findBySteamAppId(Long steamAppId);
     
@@ -0,0 +1,72 @@
+package com.shopaccgame.repository;
+
+import com.shopaccgame.entity.SteamAccountOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Inserts many new orders as one JDBC batch. Hibernate cannot batch inserts of IDENTITY entities
+ * (it needs each generated id back before the next row), so batch checkout writes the rows here
+ * and reads the entities back with a single query.
+ */
+@Repository
+public class SteamAccountOrderBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO steam_account_orders " +
+        "(order_id, steam_account_id, user_id, amount, status, payment_method, qr_code_url, created_at, paid_at, expires_at, version) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Timestamps are bound the way Hibernate binds them, so both write the same wall-clock values
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}")
+    private String jdbcTimeZone;
+
+    /**
+     * Must run inside the JPA transaction; the batch uses its connection
+     */
+    public void insertAll(List<SteamAccountOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        // Pending entity changes go first so the batch sees them
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setString(1, order.getOrderId());
+            ps.setLong(2, order.getSteamAccount().getId());
+            ps.setLong(3, order.getUser().getId());
+            ps.setBigDecimal(4, order.getAmount());
+            ps.setString(5, order.getStatus().name());
+            ps.setString(6, order.getPaymentMethod());
+            ps.setString(7, order.getQrCodeUrl());
+            setTimestamp(ps, 8, order.getCreatedAt());
+            setTimestamp(ps, 9, order.getPaidAt());
+            setTimestamp(ps, 10, order.getExpiresAt());
+        });
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value), Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone)));
+        }
+    }
+}
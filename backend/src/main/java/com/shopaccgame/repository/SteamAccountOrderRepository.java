@@ -4,14 +4,18 @@ import com.shopaccgame.entity.SteamAccountOrder;
 import com.shopaccgame.entity.User;
 import com.shopaccgame.entity.enums.AccountStockStatus;
 import com.shopaccgame.entity.enums.OrderStatus;
+import com.shopaccgame.repository.projection.ExpiredOrderView;
+import com.shopaccgame.repository.projection.PendingExpiryView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,12 +32,51 @@ public interface SteamAccountOrderRepository extends JpaRepository<SteamAccountO
     
     List<SteamAccountOrder> findByUserAndStatus(User user, OrderStatus status);
     
-    @Query("SELECT o FROM SteamAccountOrder o WHERE o.status = 'PENDING' AND o.expiresAt < :now")
-    List<SteamAccountOrder> findExpiredOrders(@Param("now") LocalDateTime now);
+    // Expire up to :limit overdue PENDING orders in one statement and return what they held.
+    // SKIP LOCKED leaves orders a payment is working on to the next run; version is bumped so that
+    // payment's optimistic lock fails instead of paying an order that just expired.
+    @Transactional
+    @Query(value = "WITH overdue AS (" +
+                   "  SELECT id FROM steam_account_orders WHERE status = 'PENDING' AND expires_at < :now " +
+                   "  ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "UPDATE steam_account_orders o SET status = 'EXPIRED', version = o.version + 1 " +
+                   "FROM overdue, steam_accounts sa " +
+                   "WHERE o.id = overdue.id AND sa.id = o.steam_account_id " +
+                   "RETURNING o.id AS id, o.order_id AS orderId, o.steam_account_id AS steamAccountId, " +
+                   "sa.account_info_id AS accountInfoId", nativeQuery = true)
+    List<ExpiredOrderView> expireOverdueOrders(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    // Same as expireOverdueOrders for orders the expiry wheel found due; the WHERE clause still
+    // decides, so an order paid in the meantime is left alone
+    @Transactional
+    @Query(value = "WITH overdue AS (" +
+                   "  SELECT id FROM steam_account_orders WHERE id IN (:ids) AND status = 'PENDING' AND expires_at < :now " +
+                   "  FOR UPDATE SKIP LOCKED) " +
+                   "UPDATE steam_account_orders o SET status = 'EXPIRED', version = o.version + 1 " +
+                   "FROM overdue, steam_accounts sa " +
+                   "WHERE o.id = overdue.id AND sa.id = o.steam_account_id " +
+                   "RETURNING o.id AS id, o.order_id AS orderId, o.steam_account_id AS steamAccountId, " +
+                   "sa.account_info_id AS accountInfoId", nativeQuery = true)
+    List<ExpiredOrderView> expireOrdersByIds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT o.id AS id, o.expiresAt AS expiresAt FROM SteamAccountOrder o WHERE o.status = 'PENDING'")
+    List<PendingExpiryView> findPendingExpiries();
     
     @Query("SELECT o FROM SteamAccountOrder o WHERE o.user = :user ORDER BY o.createdAt DESC")
     List<SteamAccountOrder> findUserOrdersOrderByCreatedAtDesc(@Param("user") User user);
     
+    // Keyset pages of a user's order history ordered by (createdAt, id) descending
+    @Query("SELECT o FROM SteamAccountOrder o WHERE o.user = :user ORDER BY o.createdAt DESC, o.id DESC")
+    List<SteamAccountOrder> findUserOrdersFirstPage(@Param("user") User user, Pageable pageable);
+    
+    @Query("SELECT o FROM SteamAccountOrder o WHERE o.user = :user " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :beforeId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<SteamAccountOrder> findUserOrdersBefore(@Param("user") User user,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("beforeId") Long beforeId,
+                                                 Pageable pageable);
+    
     @Query("SELECT o FROM SteamAccountOrder o WHERE o.steamAccount.id = :steamAccountId AND o.status IN ('PENDING', 'PAID')")
     List<SteamAccountOrder> findActiveOrdersBySteamAccountId(@Param("steamAccountId") Long steamAccountId);
     
@@ -42,6 +85,13 @@ public interface SteamAccountOrderRepository extends JpaRepository<SteamAccountO
     
     boolean existsBySteamAccountIdAndStatusIn(Long steamAccountId, List<OrderStatus> statuses);
     
+    @Query("SELECT o.steamAccount.id FROM SteamAccountOrder o WHERE o.steamAccount.id IN :steamAccountIds AND o.status IN :statuses")
+    List<Long> findSteamAccountIdsWithStatusIn(@Param("steamAccountIds") Collection<Long> steamAccountIds,
+                                               @Param("statuses") List<OrderStatus> statuses);
+    
+    @Query("SELECT o FROM SteamAccountOrder o JOIN FETCH o.steamAccount sa JOIN FETCH sa.accountInfo WHERE o.orderId IN :orderIds")
+    List<SteamAccountOrder> findByOrderIdInWithAccount(@Param("orderIds") Collection<String> orderIds);
+    
     List<SteamAccountOrder> findByStatusAndCreatedAtBetween(OrderStatus status, LocalDateTime start, LocalDateTime end);
     
     List<SteamAccountOrder> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
@@ -2,15 +2,27 @@ package com.shopaccgame.repository;
 
 import com.shopaccgame.entity.SteamAccount;
 import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.repository.projection.AllocatableAccountView;
+import com.shopaccgame.repository.projection.SteamAccountCardView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SteamAccountRepository extends JpaRepository<SteamAccount, Long> {
@@ -19,28 +31,150 @@ public interface SteamAccountRepository extends JpaRepository<SteamAccount, Long
     
     boolean existsByUsername(String username);
     
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
     List<SteamAccount> findByStatus(AccountStockStatus status);
     
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
     List<SteamAccount> findByAccountInfoId(Long accountInfoId);
     
+    // Admin listings: whole graph for the full list; paged list fetches AccountInfo and batch-loads games
+    @Override
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
+    List<SteamAccount> findAll();
+    
+    @Override
+    @EntityGraph(attributePaths = "accountInfo")
+    Page<SteamAccount> findAll(Pageable pageable);
+    
+    // Server-side cursor for the full admin export; games are batch-loaded per chunk by the caller
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ORDER BY sa.id")
+    Stream<SteamAccount> streamAllWithAccountInfo();
+    
+    // Row lock for checkout (FOR UPDATE SKIP LOCKED): empty when another transaction holds the account,
+    // so concurrent buyers of one account fail fast instead of queueing; buyers of other accounts are unaffected
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2")) // LockOptions.SKIP_LOCKED
+    @Query("SELECT sa FROM SteamAccount sa WHERE sa.id = :id")
+    Optional<SteamAccount> lockByIdSkipLocked(@Param("id") Long id);
+    
+    // Set-based lockByIdSkipLocked for batch checkout: the ids of the sellable accounts among :ids that no
+    // other transaction holds, now locked by this one. Active orders are checked after the lock, separately.
+    @Query(value = "SELECT id FROM steam_accounts WHERE id IN (:ids) AND status IN ('IN_STOCK', 'PRE_ORDER') " +
+                   "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockSellableIdsSkipLocked(@Param("ids") Collection<Long> ids);
+    
+    // Status change for a batch of accounts sold in one checkout; version is bumped like an entity update
+    @Modifying
+    @Query(value = "UPDATE steam_accounts SET status = :status, version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("status") String status);
+    
     @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai LEFT JOIN FETCH ai.games WHERE sa.id = :id")
     Optional<SteamAccount> findByIdWithAccountInfo(@Param("id") Long id);
     
-    @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
+    @Query("SELECT sa FROM SteamAccount sa WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')")
     List<SteamAccount> findAvailableAccounts();
     
-    @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
+    @Query("SELECT sa FROM SteamAccount sa JOIN sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
     List<SteamAccount> findAvailableAccountsByType(@Param("accountType") com.shopaccgame.entity.enums.AccountType accountType);
     
+    @Query(value = "SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')",
+           countQuery = "SELECT COUNT(sa) FROM SteamAccount sa WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    Page<SteamAccount> findAvailableAccounts(Pageable pageable);
+    
+    // Keyset page over available accounts, newest first; beforeId is exclusive
+    @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER') AND sa.id < :beforeId ORDER BY sa.id DESC")
+    List<SteamAccount> findAvailableAccountsBefore(@Param("beforeId") Long beforeId, Pageable pageable);
+    
+    @Query(value = "SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')",
+           countQuery = "SELECT COUNT(sa) FROM SteamAccount sa JOIN sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    Page<SteamAccount> findAvailableAccountsByType(@Param("accountType") com.shopaccgame.entity.enums.AccountType accountType, Pageable pageable);
+    
+    // Accounts checkout may hand out: IN_STOCK and not held by a pending or paid order
+    String ALLOCATABLE = "FROM SteamAccount sa WHERE sa.status = 'IN_STOCK' AND NOT EXISTS " +
+                   "(SELECT 1 FROM SteamAccountOrder o WHERE o.steamAccount = sa AND o.status IN ('PENDING', 'PAID')) ";
+    
+    @Query("SELECT sa.id AS id, sa.accountInfo.id AS accountInfoId " + ALLOCATABLE + "ORDER BY sa.id")
+    List<AllocatableAccountView> findAllocatableAccounts();
+    
+    @Query("SELECT sa.id " + ALLOCATABLE + "AND sa.accountInfo.id = :accountInfoId ORDER BY sa.id")
+    List<Long> findAllocatableIdsByAccountInfoId(@Param("accountInfoId") Long accountInfoId);
+    
+    // Storefront card projections: only the columns a card renders, no credentials
+    String CARD_SELECT = "SELECT sa.id AS id, ai.id AS accountInfoId, sa.accountCode AS accountCode, sa.status AS status, " +
+                   "sa.verifyDate AS verifyDate, sa.updatedAt AS updatedAt, ai.name AS name, ai.description AS description, " +
+                   "ai.imageUrl AS imageUrl, ai.accountType AS accountType, ai.price AS price, " +
+                   "ai.discountPercentage AS discountPercentage, ai.originalPrice AS originalPrice, ai.availableStock AS stockQuantity " +
+                   "FROM SteamAccount sa JOIN sa.accountInfo ai ";
+    
+    @Query(CARD_SELECT + "WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER') ORDER BY sa.id DESC")
+    List<SteamAccountCardView> findAvailableCards();
+    
+    @Query(CARD_SELECT + "WHERE sa.id IN :ids")
+    List<SteamAccountCardView> findCardsByIds(@Param("ids") Collection<Long> ids);
+    
+    /*
+     * Storefront search: IN_STOCK accounts whose listing name/description, any linked game, or
+     * account code matches. Parameters as in GameRepository.SEARCH_MATCH; all branches are indexed.
+     */
+    String IN_STOCK_SEARCH_MATCH = "FROM steam_accounts sa JOIN account_info ai ON ai.id = sa.account_info_id " +
+                   "WHERE sa.status = 'IN_STOCK' AND (" +
+                   "ai.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                   "OR f_unaccent(lower(ai.name)) LIKE '%' || f_unaccent(lower(:term)) || '%' " +
+                   "OR lower(sa.account_code) LIKE lower(:term) || '%' " +
+                   "OR ai.id IN (SELECT ag.account_info_id FROM account_games ag JOIN games g ON g.id = ag.game_id " +
+                   "WHERE g.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                   "OR f_unaccent(lower(g.name)) LIKE '%' || f_unaccent(lower(:term)) || '%'))";
+    
+    @Query(value = "SELECT sa.id " + IN_STOCK_SEARCH_MATCH + " ORDER BY sa.id DESC",
+           countQuery = "SELECT COUNT(*) " + IN_STOCK_SEARCH_MATCH,
+           nativeQuery = true)
+    Page<Long> searchInStockIds(@Param("term") String term, @Param("tsQuery") String tsQuery, Pageable pageable);
+    
+    @Query(CARD_SELECT + "WHERE ai.id IN :accountInfoIds AND sa.status IN ('IN_STOCK', 'PRE_ORDER') ORDER BY sa.id DESC")
+    List<SteamAccountCardView> findAvailableCardsByAccountInfoIds(@Param("accountInfoIds") Collection<Long> accountInfoIds);
+    
+    @Query(value = CARD_SELECT + "WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')",
+           countQuery = "SELECT COUNT(sa) FROM SteamAccount sa WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    Page<SteamAccountCardView> findAvailableCards(Pageable pageable);
+    
+    @Query(value = CARD_SELECT + "WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')",
+           countQuery = "SELECT COUNT(sa) FROM SteamAccount sa JOIN sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    Page<SteamAccountCardView> findAvailableCardsByType(@Param("accountType") com.shopaccgame.entity.enums.AccountType accountType, Pageable pageable);
+    
+    /*
+     * IN_STOCK / PRE_ORDER accounts whose listing links any game matching GameRepository.SEARCH_MATCH.
+     * The game match is a subquery, so every matching game counts, not only the best-ranked ones.
+     */
+    String AVAILABLE_GAME_MATCH = "FROM steam_accounts sa JOIN account_info ai ON ai.id = sa.account_info_id " +
+                   "WHERE sa.status IN ('IN_STOCK', 'PRE_ORDER') AND ai.id IN (SELECT ag.account_info_id FROM account_games ag " +
+                   "WHERE ag.game_id IN (SELECT g.id " + GameRepository.SEARCH_MATCH + "))";
+    
+    // Sort on native columns: steam_accounts ones unqualified (id, updated_at), listing ones as ai.price etc.
+    @Query(value = "SELECT sa.id " + AVAILABLE_GAME_MATCH,
+           countQuery = "SELECT COUNT(*) " + AVAILABLE_GAME_MATCH,
+           nativeQuery = true)
+    Page<Long> findAvailableIdsByGameMatch(@Param("term") String term, @Param("tsQuery") String tsQuery, Pageable pageable);
+    
+    @Query(value = "SELECT sa.id " + AVAILABLE_GAME_MATCH + " ORDER BY sa.id DESC", nativeQuery = true)
+    List<Long> findAvailableIdsByGameMatch(@Param("term") String term, @Param("tsQuery") String tsQuery);
+    
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
+    @Query("SELECT sa FROM SteamAccount sa WHERE sa.id IN :ids")
+    List<SteamAccount> findWithGamesByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo WHERE sa.username LIKE %:searchTerm%")
     Page<SteamAccount> findBySearchTerm(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     @Query("SELECT COUNT(sa) FROM SteamAccount sa JOIN sa.accountInfo ai WHERE ai.accountType = :accountType AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
     long countAvailableByType(@Param("accountType") com.shopaccgame.entity.enums.AccountType accountType);
     
-    @Query("SELECT DISTINCT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai JOIN ai.games g WHERE g.name LIKE %:gameName% AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
-    List<SteamAccount> findAvailableAccountsByGameName(@Param("gameName") String gameName);
-    
-    @Query("SELECT DISTINCT sa FROM SteamAccount sa JOIN FETCH sa.accountInfo ai JOIN ai.games g WHERE g.id = :gameId AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
+    @EntityGraph(SteamAccount.GRAPH_ACCOUNT_INFO_GAMES)
+    @Query("SELECT DISTINCT sa FROM SteamAccount sa JOIN sa.accountInfo ai JOIN ai.games g WHERE g.id = :gameId AND sa.status IN ('IN_STOCK', 'PRE_ORDER')")
     List<SteamAccount> findAvailableAccountsByGameId(@Param("gameId") Long gameId);
 }
@@ -1,9 +1,14 @@
 package com.shopaccgame.repository;
 
 import com.shopaccgame.entity.User;
+import com.shopaccgame.repository.projection.BalanceUpdateView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +27,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByOauthProviderAndOauthId(User.OAuthProvider provider, String oauthId);
+    
+    // Add :delta to the balance in one statement unless that would take it below zero; empty when
+    // the user does not exist or the balance is insufficient. The row lock taken by the UPDATE
+    // serializes concurrent purchases by one user, and version is bumped so entity-based writers
+    // holding the old row fail their optimistic lock instead of overwriting the balance.
+    @Transactional
+    @Query(value = "UPDATE users SET balance = COALESCE(balance, 0) + :delta, version = version + 1 " +
+                   "WHERE username = :username AND COALESCE(balance, 0) + :delta >= 0 " +
+                   "RETURNING id, balance", nativeQuery = true)
+    Optional<BalanceUpdateView> applyBalanceDelta(@Param("username") String username, @Param("delta") BigDecimal delta);
 }
@@ -1,8 +1,16 @@
 package com.shopaccgame.repository;
 
 import com.shopaccgame.entity.WalletDeposit;
+import com.shopaccgame.repository.projection.PendingExpiryView;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +18,24 @@ public interface WalletDepositRepository extends JpaRepository<WalletDeposit, Lo
     Optional<WalletDeposit> findByDepositId(String depositId);
 
     List<WalletDeposit> findAllByUser_UsernameOrderByCreatedAtDesc(String username);
-}
 
+    // Row lock (FOR UPDATE) so concurrent deliveries of one payment see each other's status change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM WalletDeposit d WHERE d.depositId = :depositId")
+    Optional<WalletDeposit> lockByDepositId(@Param("depositId") String depositId);
+
+    @Query("SELECT d.id AS id, d.expiresAt AS expiresAt FROM WalletDeposit d WHERE d.status = 'PENDING'")
+    List<PendingExpiryView> findPendingExpiries();
 
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE wallet_deposits SET status = 'EXPIRED' " +
+                   "WHERE id IN (:ids) AND status = 'PENDING' AND expires_at < :now", nativeQuery = true)
+    int expireDepositsByIds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE wallet_deposits SET status = 'EXPIRED' " +
+                   "WHERE status = 'PENDING' AND expires_at < :now", nativeQuery = true)
+    int expireOverdueDeposits(@Param("now") LocalDateTime now);
+}
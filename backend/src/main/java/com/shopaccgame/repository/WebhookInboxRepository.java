@@ -0,0 +1,60 @@
+package com.shopaccgame.repository;
+
+import com.shopaccgame.entity.WebhookInboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WebhookInboxRepository extends JpaRepository<WebhookInboxMessage, Long> {
+
+    // One INSERT per webhook; a redelivery of a stored transaction inserts nothing and returns 0
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO webhook_inbox (transaction_id, payload, status, attempts, received_at, next_attempt_at) " +
+                   "VALUES (:transactionId, :payload, 'PENDING', 0, :now, :now) " +
+                   "ON CONFLICT (transaction_id) DO NOTHING", nativeQuery = true)
+    int enqueue(@Param("transactionId") String transactionId,
+                @Param("payload") String payload,
+                @Param("now") LocalDateTime now);
+
+    // Claim up to :limit due messages: bump attempts and hide them from other workers until :leaseUntil.
+    // A worker that dies mid-batch leaves its messages to be claimed again once the lease runs out.
+    @Transactional
+    @Query(value = "WITH due AS (" +
+                   "  SELECT id FROM webhook_inbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "  ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "UPDATE webhook_inbox m SET attempts = m.attempts + 1, next_attempt_at = :leaseUntil " +
+                   "FROM due WHERE m.id = due.id RETURNING m.*", nativeQuery = true)
+    List<WebhookInboxMessage> claimDue(@Param("now") LocalDateTime now,
+                                       @Param("leaseUntil") LocalDateTime leaseUntil,
+                                       @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxMessage m SET m.status = 'PROCESSED', m.processedAt = :now, m.lastError = :error " +
+           "WHERE m.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxMessage m SET m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int scheduleRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxMessage m SET m.status = 'FAILED', m.processedAt = :now, m.lastError = :error " +
+           "WHERE m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("error") String error);
+
+    @Query("SELECT COUNT(m) FROM WebhookInboxMessage m WHERE m.status = 'PENDING'")
+    long countPending();
+
+    @Query("SELECT MIN(m.receivedAt) FROM WebhookInboxMessage m WHERE m.status = 'PENDING'")
+    LocalDateTime findOldestPendingReceivedAt();
+}
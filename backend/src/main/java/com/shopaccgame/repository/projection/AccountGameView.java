@@ -0,0 +1,15 @@
+package com.shopaccgame.repository.projection;
+
+/**
+ * Game chip of a listing (no description or PC requirements), keyed by the owning AccountInfo
+ */
+public interface AccountGameView {
+
+    Long getAccountInfoId();
+
+    Long getId();
+
+    String getName();
+
+    String getImageUrl();
+}
@@ -0,0 +1,35 @@
+package com.shopaccgame.repository.projection;
+
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * AccountInfo columns for the available-listings endpoints; the games and steam accounts are not loaded
+ */
+public interface AccountInfoSummaryView {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getImageUrl();
+
+    AccountType getAccountType();
+
+    BigDecimal getPrice();
+
+    Integer getDiscountPercentage();
+
+    BigDecimal getOriginalPrice();
+
+    LocalDateTime getUpdatedAt();
+
+    AccountClassification getClassify();
+
+    Long getAvailableStock();
+}
@@ -0,0 +1,11 @@
+package com.shopaccgame.repository.projection;
+
+/**
+ * Steam account id and its listing, used to seed the in-memory inventory allocator
+ */
+public interface AllocatableAccountView {
+
+    Long getId();
+
+    Long getAccountInfoId();
+}
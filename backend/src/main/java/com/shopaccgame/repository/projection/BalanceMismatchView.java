@@ -0,0 +1,17 @@
+package com.shopaccgame.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * A user whose stored balance differs from the balance their ledger adds up to
+ */
+public interface BalanceMismatchView {
+
+    Long getUserId();
+
+    String getUsername();
+
+    BigDecimal getBalance();
+
+    BigDecimal getLedgerBalance();
+}
@@ -0,0 +1,13 @@
+package com.shopaccgame.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Row returned by the atomic balance UPDATE ... RETURNING: the user and their new balance
+ */
+public interface BalanceUpdateView {
+
+    Long getId();
+
+    BigDecimal getBalance();
+}
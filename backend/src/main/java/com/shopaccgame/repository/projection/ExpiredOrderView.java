@@ -0,0 +1,15 @@
+package com.shopaccgame.repository.projection;
+
+/**
+ * Row returned by the bulk expiry UPDATE ... RETURNING: the order and the stock it was holding
+ */
+public interface ExpiredOrderView {
+
+    Long getId();
+
+    String getOrderId();
+
+    Long getSteamAccountId();
+
+    Long getAccountInfoId();
+}
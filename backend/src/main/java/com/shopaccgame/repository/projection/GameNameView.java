@@ -0,0 +1,11 @@
+package com.shopaccgame.repository.projection;
+
+/**
+ * Id/name pair for game pickers; selects two columns instead of the full Game row
+ */
+public interface GameNameView {
+
+    Long getId();
+
+    String getName();
+}
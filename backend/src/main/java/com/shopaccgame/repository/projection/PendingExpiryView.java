@@ -0,0 +1,13 @@
+package com.shopaccgame.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A PENDING order or deposit and when it lapses; loaded at startup to rebuild the expiry wheel
+ */
+public interface PendingExpiryView {
+
+    Long getId();
+
+    LocalDateTime getExpiresAt();
+}
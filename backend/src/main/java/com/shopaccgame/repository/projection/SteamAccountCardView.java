@@ -0,0 +1,41 @@
+package com.shopaccgame.repository.projection;
+
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Columns rendered by a storefront card; never touches credentials (username, password, steam guard)
+ */
+public interface SteamAccountCardView {
+
+    Long getId();
+
+    Long getAccountInfoId();
+
+    String getAccountCode();
+
+    AccountStockStatus getStatus();
+
+    LocalDateTime getVerifyDate();
+
+    LocalDateTime getUpdatedAt();
+
+    String getName();
+
+    String getDescription();
+
+    String getImageUrl();
+
+    AccountType getAccountType();
+
+    BigDecimal getPrice();
+
+    Integer getDiscountPercentage();
+
+    BigDecimal getOriginalPrice();
+
+    Long getStockQuantity();
+}
@@ -3,6 +3,7 @@ package com.shopaccgame.service;
 import com.shopaccgame.dto.AccountInfoDto;
 import com.shopaccgame.dto.AccountInfoRequestDto;
 import com.shopaccgame.dto.AccountInfoWithSteamAccountsDto;
+import com.shopaccgame.dto.CursorPageDto;
 import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.Game;
 import com.shopaccgame.entity.SteamAccount;
@@ -15,11 +16,17 @@ import com.shopaccgame.repository.SteamAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -44,11 +51,28 @@ public class AccountInfoService {
     @Autowired
     private EncryptionService encryptionService;
     
-    public List<AccountInfoDto> getAllAccountInfos() {
-        List<AccountInfo> accountInfos = accountInfoRepository.findAll();
-        return accountInfos.stream()
-            .map(AccountInfoDto::new)
-            .collect(Collectors.toList());
+    @Autowired
+    private AccountStockService accountStockService;
+    
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
+    /**
+     * Write every account info as an array in the given format straight from a database cursor
+     */
+    @Transactional(readOnly = true)
+    public void writeAllAccountInfos(OutputStream out, MediaType format) throws IOException {
+        long count = jsonArrayStreamer.write(out, format, accountInfoRepository.streamAll(), AccountInfoDto::new);
+        logger.debug("Streamed {} account infos", count);
     }
     
     public Page<AccountInfoDto> getAccountInfos(Pageable pageable) {
@@ -56,16 +80,29 @@ public class AccountInfoService {
         return accountInfos.map(AccountInfoDto::new);
     }
     
+    /**
+     * Keyset page of account infos ordered by id descending
+     * @param after cursor returned by the previous page, or null for the first page
+     */
+    public CursorPageDto<AccountInfoDto> getAccountInfosAfter(String after, int size) {
+        int pageSize = CursorPageDto.normalizeSize(size);
+        Long beforeId = after != null ? Long.valueOf(CursorPageDto.decodeCursor(after)[1]) : Long.MAX_VALUE;
+        List<AccountInfo> rows = accountInfoRepository.findBefore(beforeId, PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, AccountInfoDto::new,
+            accountInfo -> CursorPageDto.encodeCursor(accountInfo.getId(), accountInfo.getId()));
+    }
+    
     public Page<AccountInfoDto> getAccountInfosByType(AccountType accountType, Pageable pageable) {
         Page<AccountInfo> accountInfos = accountInfoRepository.findByAccountType(accountType, pageable);
         return accountInfos.map(AccountInfoDto::new);
     }
     
     public Page<AccountInfoDto> searchAccountInfos(String searchTerm, Pageable pageable) {
-        Page<AccountInfo> accountInfos = accountInfoRepository.findBySearchTerm(searchTerm, pageable);
+        Page<AccountInfo> accountInfos = searchService.searchAccountInfos(searchTerm, pageable);
         return accountInfos.map(AccountInfoDto::new);
     }
     
+    @Cacheable(value = EntityCacheService.ACCOUNT_INFOS, unless = "#result == null")
     public Optional<AccountInfoDto> getAccountInfoById(Long id) {
         return accountInfoRepository.findById(id)
             .map(AccountInfoDto::new);
@@ -152,6 +189,7 @@ public class AccountInfoService {
                 
                 steamAccountRepository.save(steamAccount);
             }
+            accountStockService.refreshAvailableStock(savedAccountInfo);
         }
         
         logger.info("AccountInfo with SteamAccounts created successfully with ID: {}", savedAccountInfo.getId());
@@ -188,6 +226,7 @@ public class AccountInfoService {
         }
         
         AccountInfo savedAccountInfo = accountInfoRepository.save(accountInfo);
+        eventPublisher.publishEvent(CatalogChangedEvent.listing(savedAccountInfo.getId()));
         logger.info("AccountInfo updated successfully with ID: {}", savedAccountInfo.getId());
         
         return new AccountInfoDto(savedAccountInfo);
@@ -201,24 +240,15 @@ public class AccountInfoService {
         }
         
         accountInfoRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.listing(id));
         logger.info("AccountInfo deleted successfully with ID: {}", id);
     }
     
     public List<AccountInfoDto> getAvailableAccountInfos() {
-        System.out.println("[AccountInfoService] findAvailableAccountInfos executing");
-        List<AccountInfo> accountInfos = accountInfoRepository.findAvailableAccountInfos();
-        System.out.println("[AccountInfoService] found count=" + (accountInfos != null ? accountInfos.size() : 0));
-        return accountInfos.stream()
-            .map(AccountInfoDto::new)
-            .collect(Collectors.toList());
+        return catalogService.getSnapshot().getAvailableListings();
     }
     
     public List<AccountInfoDto> getAvailableAccountInfosByType(AccountType accountType) {
-        System.out.println("[AccountInfoService] findAvailableAccountInfosByType executing accountType=" + accountType);
-        List<AccountInfo> accountInfos = accountInfoRepository.findAvailableAccountInfosByType(accountType);
-        System.out.println("[AccountInfoService] found count by type=" + (accountInfos != null ? accountInfos.size() : 0));
-        return accountInfos.stream()
-            .map(AccountInfoDto::new)
-            .collect(Collectors.toList());
+        return catalogService.getSnapshot().getAvailableListings(accountType);
     }
 }
@@ -0,0 +1,67 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.repository.AccountInfoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Keeps account_info.available_stock in line with the IN_STOCK steam accounts of each listing.
+ * Call refreshAvailableStock after any steam account status change, insert or delete;
+ * it also tells CatalogService to reload that listing once the transaction commits.
+ */
+@Service
+@Transactional
+public class AccountStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStockService.class);
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Recount available stock for the listing that owns a steam account; the loaded entity is
+     * updated too, so DTOs built from it in the same transaction show the new count
+     */
+    public void refreshAvailableStock(AccountInfo accountInfo) {
+        if (accountInfo != null) {
+            refreshAvailableStock(accountInfo.getId()).ifPresent(accountInfo::setAvailableStockCount);
+        }
+    }
+
+    /**
+     * Recount available stock for one listing (pending changes are flushed first)
+     * @return the new count, or empty if the listing does not exist
+     */
+    public Optional<Long> refreshAvailableStock(Long accountInfoId) {
+        if (accountInfoId == null) {
+            return Optional.empty();
+        }
+        accountInfoRepository.flush();
+        Optional<Long> availableStock = accountInfoRepository.refreshAvailableStock(accountInfoId);
+        eventPublisher.publishEvent(CatalogChangedEvent.listing(accountInfoId));
+        return availableStock;
+    }
+
+    /**
+     * Scheduled task to repair counters that drifted (e.g. manual SQL or a missed code path)
+     */
+    @Scheduled(fixedRate = 300000) // Run every 5 minutes
+    public void reconcileAvailableStock() {
+        int repaired = accountInfoRepository.reconcileAvailableStock();
+        if (repaired > 0) {
+            logger.warn("Reconciled available stock for {} account info(s)", repaired);
+            eventPublisher.publishEvent(CatalogChangedEvent.all());
+        }
+    }
+}
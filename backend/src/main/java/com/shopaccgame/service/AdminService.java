@@ -1,18 +1,19 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.config.RetryOnConflict;
 import com.shopaccgame.dto.AdminOrderDto;
 import com.shopaccgame.dto.RevenueStatsDto;
 import com.shopaccgame.dto.DeliveryRequestDto;
 import com.shopaccgame.entity.SteamAccountOrder;
 import com.shopaccgame.entity.SteamAccount;
 import com.shopaccgame.entity.User;
+import com.shopaccgame.entity.BalanceLedgerEntry;
 import com.shopaccgame.entity.RefundTransaction;
 import com.shopaccgame.entity.enums.AccountClassification;
 import com.shopaccgame.entity.enums.AccountStockStatus;
 import com.shopaccgame.entity.enums.OrderStatus;
 import com.shopaccgame.repository.SteamAccountOrderRepository;
 import com.shopaccgame.repository.SteamAccountRepository;
-import com.shopaccgame.repository.UserRepository;
 import com.shopaccgame.repository.RefundTransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,11 +43,14 @@ public class AdminService {
     private SteamAccountRepository steamAccountRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserBalanceService userBalanceService;
     
     @Autowired
     private RefundTransactionRepository refundTransactionRepository;
     
+    @Autowired
+    private AccountStockService accountStockService;
+    
     /**
      * Get all orders for admin management
      */
@@ -119,6 +123,7 @@ public class AdminService {
     /**
      * Mark order as delivered
      */
+    @RetryOnConflict
     public void markOrderAsDelivered(String orderId) {
         SteamAccountOrder order = orderRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
@@ -135,6 +140,7 @@ public class AdminService {
     /**
      * Mark order as delivered with Steam account details
      */
+    @RetryOnConflict
     public void markOrderAsDeliveredWithAccount(String orderId, DeliveryRequestDto deliveryRequest) {
         SteamAccountOrder order = orderRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
@@ -157,6 +163,7 @@ public class AdminService {
         
         // Save Steam account
         steamAccountRepository.save(steamAccount);
+        accountStockService.refreshAvailableStock(steamAccount.getAccountInfo());
         
         // Mark order as delivered
         order.markAsDelivered();
@@ -169,6 +176,7 @@ public class AdminService {
     /**
      * Cancel order and refund
      */
+    @RetryOnConflict
     public void cancelOrder(String orderId) {
         SteamAccountOrder order = orderRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
@@ -181,10 +189,8 @@ public class AdminService {
         User user = order.getUser();
         if (user != null) {
             BigDecimal refundAmount = order.getAmount();
-            BigDecimal currentBalance = user.getBalance();
-            BigDecimal newBalance = currentBalance.add(refundAmount);
-            user.setBalance(newBalance);
-            userRepository.save(user);
+            BigDecimal newBalance = userBalanceService.addToBalance(user.getUsername(), refundAmount,
+                BalanceLedgerEntry.Type.REFUND, orderId);
             
             // Create refund transaction record
             RefundTransaction refundTransaction = new RefundTransaction(user, order, refundAmount);
@@ -201,6 +207,7 @@ public class AdminService {
         if (steamAccount != null) {
             steamAccount.setStatus(AccountStockStatus.CANCELLED);
             steamAccountRepository.save(steamAccount);
+            accountStockService.refreshAvailableStock(steamAccount.getAccountInfo());
             logger.info("Steam account {} status updated to CANCELLED for order {}", 
                        steamAccount.getId(), orderId);
         } else {
@@ -0,0 +1,105 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.entity.BalanceLedgerEntry;
+import com.shopaccgame.entity.User;
+import com.shopaccgame.repository.BalanceLedgerBatchWriter;
+import com.shopaccgame.repository.BalanceLedgerRepository;
+import com.shopaccgame.repository.projection.BalanceMismatchView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only ledger behind users.balance. UserBalanceService writes an entry in the same
+ * transaction as every balance change; periodic per-user snapshots keep reading a ledger balance
+ * O(1) amortized, and a verifier checks that every stored balance matches its ledger.
+ */
+@Service
+@Transactional
+public class BalanceLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceLedgerService.class);
+
+    // Entries younger than this stay out of snapshots, so a slow transaction's entry is not skipped
+    private static final Duration SNAPSHOT_SETTLE_TIME = Duration.ofMinutes(5);
+
+    @Autowired
+    private BalanceLedgerRepository ledgerRepository;
+
+    @Autowired
+    private BalanceLedgerBatchWriter ledgerBatchWriter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger mismatchedBalances = new AtomicInteger();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("balance.ledger.mismatches", mismatchedBalances, AtomicInteger::get)
+            .description("Users whose balance differed from their ledger at the last verification")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Append a signed entry; must run in the transaction that changes the user's balance
+     */
+    public void record(User user, BigDecimal amount, BalanceLedgerEntry.Type type, String reference) {
+        ledgerRepository.save(new BalanceLedgerEntry(user, amount, type, reference));
+    }
+
+    /**
+     * Append one signed entry per reference, as one batch; must run in the transaction that changes
+     * the user's balance by their sum
+     */
+    public void recordAll(User user, Map<String, BigDecimal> amountByReference, BalanceLedgerEntry.Type type) {
+        List<BalanceLedgerEntry> entries = new ArrayList<>(amountByReference.size());
+        amountByReference.forEach((reference, amount) -> entries.add(new BalanceLedgerEntry(user, amount, type, reference)));
+        ledgerBatchWriter.insertAll(entries);
+    }
+
+    /**
+     * Balance the user's ledger adds up to
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getLedgerBalance(Long userId) {
+        return ledgerRepository.ledgerBalance(userId);
+    }
+
+    @Scheduled(fixedRate = 900000) // Run every 15 minutes
+    public void takeSnapshots() {
+        LocalDateTime now = LocalDateTime.now();
+        int snapshots = ledgerRepository.takeSnapshots(now.minus(SNAPSHOT_SETTLE_TIME), now);
+        if (snapshots > 0) {
+            logger.debug("Updated balance snapshots for {} user(s)", snapshots);
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000, initialDelay = 60000) // Run every hour
+    @Transactional(readOnly = true)
+    public void verifyBalances() {
+        List<BalanceMismatchView> mismatches = ledgerRepository.findMismatches();
+        mismatchedBalances.set(mismatches.size());
+        for (BalanceMismatchView mismatch : mismatches) {
+            logger.error("Balance of user {} ({}) is {} but the ledger adds up to {}",
+                mismatch.getUsername(), mismatch.getUserId(), mismatch.getBalance(), mismatch.getLedgerBalance());
+        }
+        if (mismatches.isEmpty()) {
+            logger.debug("All user balances match the ledger");
+        }
+    }
+}
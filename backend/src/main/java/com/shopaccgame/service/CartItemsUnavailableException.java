@@ -0,0 +1,26 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.UnavailableCartItemDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Checkout found too few sellable accounts for some cart items; nothing was ordered
+ */
+public class CartItemsUnavailableException extends RuntimeException {
+
+    private final List<UnavailableCartItemDto> unavailableItems;
+
+    public CartItemsUnavailableException(List<UnavailableCartItemDto> unavailableItems) {
+        super(unavailableItems.stream()
+            .map(item -> "Not enough available steam accounts for '" + item.getAccountInfoName() +
+                "' (requested: " + item.getRequested() + ", available: " + item.getAvailable() + ")")
+            .collect(Collectors.joining("; ")));
+        this.unavailableItems = unavailableItems;
+    }
+
+    public List<UnavailableCartItemDto> getUnavailableItems() {
+        return unavailableItems;
+    }
+}
@@ -1,7 +1,9 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.config.RetryOnConflict;
 import com.shopaccgame.dto.CartItemDto;
 import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.dto.UnavailableCartItemDto;
 import com.shopaccgame.entity.CartItem;
 import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.User;
@@ -17,7 +19,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,7 +45,7 @@ public class CartService {
     private com.shopaccgame.service.SteamAccountOrderService orderService;
     
     @Autowired
-    private com.shopaccgame.service.UserBalanceService userBalanceService;
+    private InventoryAllocator inventoryAllocator;
     
     @Transactional
     public CartItemDto addToCart(String username, Long steamAccountId, Integer quantity) {
@@ -145,70 +152,26 @@ public class CartService {
      * Create orders from all cart items and clear the cart
      */
     @Transactional
+    @RetryOnConflict
     public List<OrderResponseDto> checkoutCart(String username) {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<CartItem> cartItems = cartItemRepository.findByUserOrderByAddedAtDesc(user);
-        
-        if (cartItems.isEmpty()) {
-            throw new RuntimeException("Cart is empty");
-        }
-        
-        // Validate all items are still available
-        for (CartItem item : cartItems) {
-            AccountInfo accountInfo = item.getAccountInfo();
-            if (accountInfo.getAvailableStockCount() <= 0) {
-                throw new RuntimeException("Account info '" + accountInfo.getName() + "' is no longer available");
-            }
-        }
-        
-        // Create orders for each cart item
-        List<OrderResponseDto> orders = new java.util.ArrayList<>();
-        for (CartItem item : cartItems) {
-            try {
-                // Find an available steam account for this account info
-                List<com.shopaccgame.entity.SteamAccount> availableAccounts = steamAccountRepository.findByAccountInfoId(item.getAccountInfo().getId())
-                    .stream()
-                    .filter(account -> account.getStatus() == com.shopaccgame.entity.enums.AccountStockStatus.IN_STOCK)
-                    .toList();
-                
-                if (availableAccounts.isEmpty()) {
-                    throw new RuntimeException("No available steam accounts found for '" + item.getAccountInfo().getName() + "'");
-                }
-                
-                // Create order for each quantity (if quantity > 1, create multiple orders)
-                for (int i = 0; i < item.getQuantity(); i++) {
-                    if (i >= availableAccounts.size()) {
-                        throw new RuntimeException("Not enough available steam accounts for '" + item.getAccountInfo().getName() + "' (requested: " + item.getQuantity() + ", available: " + availableAccounts.size() + ")");
-                    }
-                    
-                    // Create order request for this specific steam account
-                    com.shopaccgame.dto.OrderRequestDto orderRequest = new com.shopaccgame.dto.OrderRequestDto();
-                    orderRequest.setSteamAccountId(availableAccounts.get(i).getId());
-                    
-                    // Create the order
-                    OrderResponseDto order = orderService.createOrder(orderRequest, username);
-                    orders.add(order);
-                }
-            } catch (Exception e) {
-                // If any order fails, rollback all orders
-                throw new RuntimeException("Failed to create order for account '" + 
-                    item.getAccountInfo().getName() + "': " + e.getMessage());
-            }
-        }
-        
-        // Clear the cart after successful order creation
-        cartItemRepository.deleteByUser(user);
-        
-        return orders;
+        return checkout(username, false);
     }
     
     /**
      * Create orders from all cart items, pay with balance, and clear the cart
      */
     @Transactional
+    @RetryOnConflict
     public List<OrderResponseDto> checkoutCartWithBalance(String username) {
+        return checkout(username, true);
+    }
+    
+    /**
+     * Batch checkout: accounts for every cart item are reserved together, then all orders are created
+     * by SteamAccountOrderService.createOrders. The cart is all or nothing; when any item cannot be
+     * filled, CartItemsUnavailableException lists each short item and nothing is ordered.
+     */
+    private List<OrderResponseDto> checkout(String username, boolean payWithBalance) {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -218,58 +181,38 @@ public class CartService {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Validate all items are still available
+        // Units wanted per account info; one order per unit of quantity
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (CartItem item : cartItems) {
-            AccountInfo accountInfo = item.getAccountInfo();
-            if (accountInfo.getAvailableStockCount() <= 0) {
-                throw new RuntimeException("Account info '" + accountInfo.getName() + "' is no longer available");
-            }
+            quantities.merge(item.getAccountInfo().getId(), item.getQuantity(), Integer::sum);
         }
+        Map<Long, List<Long>> allocated = inventoryAllocator.allocateAll(quantities, orderService::tryReserveSteamAccounts);
         
-        // Calculate total amount needed
-        BigDecimal totalAmount = getCartTotal(username);
-        
-        // Check if user has enough balance
-        if (userBalanceService.getUserBalance(username).compareTo(totalAmount) < 0) {
-            throw new RuntimeException("Insufficient balance. Required: " + totalAmount + ", Available: " + userBalanceService.getUserBalance(username));
-        }
-        
-        // Create and pay orders for each cart item
-        List<OrderResponseDto> orders = new java.util.ArrayList<>();
+        // Hand the reserved accounts out to cart items in cart order
+        Map<Long, AccountInfo> listingByAccountId = new LinkedHashMap<>();
+        List<UnavailableCartItemDto> unavailable = new ArrayList<>();
+        Map<Long, Iterator<Long>> remaining = new HashMap<>();
+        allocated.forEach((accountInfoId, accountIds) -> remaining.put(accountInfoId, accountIds.iterator()));
         for (CartItem item : cartItems) {
-            try {
-                // Find an available steam account for this account info
-                List<com.shopaccgame.entity.SteamAccount> availableAccounts = steamAccountRepository.findByAccountInfoId(item.getAccountInfo().getId())
-                    .stream()
-                    .filter(account -> account.getStatus() == com.shopaccgame.entity.enums.AccountStockStatus.IN_STOCK)
-                    .toList();
-                
-                if (availableAccounts.isEmpty()) {
-                    throw new RuntimeException("No available steam accounts found for '" + item.getAccountInfo().getName() + "'");
-                }
-                
-                // Create order for each quantity (if quantity > 1, create multiple orders)
-                for (int i = 0; i < item.getQuantity(); i++) {
-                    if (i >= availableAccounts.size()) {
-                        throw new RuntimeException("Not enough available steam accounts for '" + item.getAccountInfo().getName() + "' (requested: " + item.getQuantity() + ", available: " + availableAccounts.size() + ")");
-                    }
-                    
-                    // Create order request for this specific steam account
-                    com.shopaccgame.dto.OrderRequestDto orderRequest = new com.shopaccgame.dto.OrderRequestDto();
-                    orderRequest.setSteamAccountId(availableAccounts.get(i).getId());
-                    
-                    // Create and pay the order with balance
-                    OrderResponseDto order = orderService.createAndPayWithBalance(orderRequest, username);
-                    orders.add(order);
-                }
-            } catch (Exception e) {
-                // If any order fails, rollback all orders
-                throw new RuntimeException("Failed to create and pay order for account '" + 
-                    item.getAccountInfo().getName() + "': " + e.getMessage());
+            AccountInfo accountInfo = item.getAccountInfo();
+            Iterator<Long> accountIds = remaining.get(accountInfo.getId());
+            int assigned = 0;
+            while (assigned < item.getQuantity() && accountIds.hasNext()) {
+                listingByAccountId.put(accountIds.next(), accountInfo);
+                assigned++;
             }
+            if (assigned < item.getQuantity()) {
+                unavailable.add(new UnavailableCartItemDto(item.getId(), accountInfo.getId(), accountInfo.getName(),
+                    item.getQuantity(), assigned));
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            throw new CartItemsUnavailableException(unavailable);
         }
         
-        // Clear the cart after successful order creation and payment
+        List<OrderResponseDto> orders = orderService.createOrders(user, listingByAccountId, payWithBalance);
+        
+        // Clear the cart after successful order creation
         cartItemRepository.deleteByUser(user);
         
         return orders;
@@ -0,0 +1,41 @@
+package com.shopaccgame.service;
+
+/**
+ * Published when stock, price or game associations change so the catalog snapshot can be refreshed.
+ * A null accountInfoId means the whole catalog (e.g. a game was renamed); gamesOnly means only
+ * the game name list changed (games were added) and listings can be kept.
+ */
+public class CatalogChangedEvent {
+
+    private final Long accountInfoId;
+    private final boolean gamesOnly;
+
+    private CatalogChangedEvent(Long accountInfoId, boolean gamesOnly) {
+        this.accountInfoId = accountInfoId;
+        this.gamesOnly = gamesOnly;
+    }
+
+    public static CatalogChangedEvent listing(Long accountInfoId) {
+        return new CatalogChangedEvent(accountInfoId, false);
+    }
+
+    public static CatalogChangedEvent games() {
+        return new CatalogChangedEvent(null, true);
+    }
+
+    public static CatalogChangedEvent all() {
+        return new CatalogChangedEvent(null, false);
+    }
+
+    public boolean isFullRebuild() {
+        return accountInfoId == null && !gamesOnly;
+    }
+
+    public boolean isGamesOnly() {
+        return gamesOnly;
+    }
+
+    public Long getAccountInfoId() {
+        return accountInfoId;
+    }
+}
@@ -0,0 +1,583 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.CatalogQueryDto;
+import com.shopaccgame.dto.CatalogQueryResultDto;
+import com.shopaccgame.dto.CatalogQueryResultDto.FacetCount;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bitset facet engine over the listings of one CatalogSnapshot.
+ * Each facet value owns a BitSet of listing positions; numeric filters use position arrays
+ * sorted by value. Filtering is AND/OR over bitsets and counting is BitSet.cardinality,
+ * so a query never touches the database.
+ * Positions follow listing id, oldest first. withListings patches a copy: only the bitsets
+ * and sorted columns a changed listing touches are copied, and a removed listing leaves an
+ * empty position behind until the next full build.
+ */
+public final class CatalogFacetIndex {
+
+    public static final String FACET_ACCOUNT_TYPE = "accountType";
+    public static final String FACET_CLASSIFY = "classify";
+    public static final String FACET_STOCK_STATUS = "stockStatus";
+    public static final String FACET_GAMES = "games";
+    public static final String FACET_PRICE = "price";
+    public static final String FACET_DISCOUNT = "discount";
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_GAME_FACETS = 20;
+
+    // Upper bounds (exclusive) of the price buckets, in VND; the last bucket is open-ended
+    private static final long[] PRICE_BUCKETS = { 50_000, 100_000, 200_000, 500_000, 1_000_000 };
+    // Lower bounds (inclusive) of the discount buckets, in percent
+    private static final int[] DISCOUNT_BUCKETS = { 0, 1, 25, 50 };
+    private static final String[] PRICE_LABELS = priceLabels();
+    private static final String[] DISCOUNT_LABELS = discountLabels();
+
+    private static final Function<AccountInfoDto, BigDecimal> PRICE = AccountInfoDto::getPrice;
+    private static final Function<AccountInfoDto, Integer> DISCOUNT = summary ->
+        summary.getDiscountPercentage() != null ? summary.getDiscountPercentage() : 0;
+
+    // Listing id and summary per position; a null summary is a listing removed since the last full build
+    private final long[] ids;
+    private final AccountInfoDto[] listings;
+    private final Facets facets;
+    private final SortedColumn<BigDecimal> priceColumn;
+    private final SortedColumn<Integer> discountColumn;
+    private final SortedColumn<String> nameColumn;
+
+    public CatalogFacetIndex(Collection<CatalogSnapshot.Listing> listings) {
+        List<CatalogSnapshot.Listing> oldestFirst = new ArrayList<>(listings);
+        oldestFirst.sort(Comparator.comparing(CatalogSnapshot.Listing::getAccountInfoId));
+        this.ids = new long[oldestFirst.size()];
+        this.listings = new AccountInfoDto[oldestFirst.size()];
+        this.facets = new Facets();
+        for (int position = 0; position < oldestFirst.size(); position++) {
+            CatalogSnapshot.Listing listing = oldestFirst.get(position);
+            ids[position] = listing.getAccountInfoId();
+            this.listings[position] = listing.getSummary();
+            facets.add(position, listing);
+        }
+        facets.seal();
+        this.priceColumn = new SortedColumn<>(this.listings, PRICE, Comparator.naturalOrder(), false);
+        this.discountColumn = new SortedColumn<>(this.listings, DISCOUNT, Comparator.naturalOrder(), false);
+        this.nameColumn = new SortedColumn<>(this.listings, AccountInfoDto::getName,
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER), true);
+    }
+
+    private CatalogFacetIndex(long[] ids, AccountInfoDto[] listings, Facets facets, SortedColumn<BigDecimal> priceColumn,
+                              SortedColumn<Integer> discountColumn, SortedColumn<String> nameColumn) {
+        this.ids = ids;
+        this.listings = listings;
+        this.facets = facets;
+        this.priceColumn = priceColumn;
+        this.discountColumn = discountColumn;
+        this.nameColumn = nameColumn;
+    }
+
+    /**
+     * Copy of this index with some listings replaced, added or (null value) removed
+     * @return null when a new listing is older than the newest indexed one and so has no position;
+     *         the caller builds a new index instead
+     */
+    public CatalogFacetIndex withListings(Map<Long, CatalogSnapshot.Listing> changes) {
+        Map<Integer, CatalogSnapshot.Listing> byPosition = new HashMap<>();
+        List<CatalogSnapshot.Listing> added = new ArrayList<>();
+        changes.forEach((accountInfoId, listing) -> {
+            int position = Arrays.binarySearch(ids, accountInfoId);
+            if (position >= 0) {
+                byPosition.put(position, listing);
+            } else if (listing != null) {
+                added.add(listing);
+            }
+        });
+        added.sort(Comparator.comparing(CatalogSnapshot.Listing::getAccountInfoId));
+        if (!added.isEmpty() && ids.length > 0 && added.get(0).getAccountInfoId() < ids[ids.length - 1]) {
+            return null;
+        }
+
+        long[] nextIds = Arrays.copyOf(ids, ids.length + added.size());
+        AccountInfoDto[] nextListings = Arrays.copyOf(listings, ids.length + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            nextIds[ids.length + i] = added.get(i).getAccountInfoId();
+            byPosition.put(ids.length + i, added.get(i));
+        }
+        Facets nextFacets = new Facets(facets);
+        byPosition.forEach((position, listing) -> {
+            if (listings.length > position && listings[position] != null) {
+                nextFacets.remove(position, listings[position]);
+            }
+            nextListings[position] = listing != null ? listing.getSummary() : null;
+            if (listing != null) {
+                nextFacets.add(position, listing);
+            }
+        });
+        nextFacets.seal();
+        Set<Integer> changed = byPosition.keySet();
+        return new CatalogFacetIndex(nextIds, nextListings, nextFacets,
+            priceColumn.with(nextListings, changed), discountColumn.with(nextListings, changed),
+            nameColumn.with(nextListings, changed));
+    }
+
+    public CatalogQueryResultDto query(CatalogQueryDto query, long catalogVersion) {
+        // One optional bitset per dimension; null means the dimension is not filtered
+        Map<String, BitSet> filters = new LinkedHashMap<>();
+        filters.put(FACET_ACCOUNT_TYPE, union(facets.byAccountType, query.getAccountTypes()));
+        filters.put(FACET_CLASSIFY, union(facets.byClassify, query.getClassifications()));
+        filters.put(FACET_STOCK_STATUS, union(facets.byStockStatus, query.getStockStatuses()));
+        filters.put(FACET_GAMES, query.isMatchAllGames()
+            ? intersection(facets.byGame, query.getGameIds()) : union(facets.byGame, query.getGameIds()));
+        filters.put(FACET_PRICE, query.getMinPrice() != null || query.getMaxPrice() != null
+            ? priceColumn.range(query.getMinPrice(), query.getMaxPrice()) : null);
+        filters.put(FACET_DISCOUNT, query.getMinDiscount() != null
+            ? discountColumn.range(query.getMinDiscount(), null) : null);
+
+        BitSet matches = combine(filters, null);
+
+        Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+        counts.put(FACET_ACCOUNT_TYPE, enumCounts(facets.byAccountType, combine(filters, FACET_ACCOUNT_TYPE)));
+        counts.put(FACET_CLASSIFY, enumCounts(facets.byClassify, combine(filters, FACET_CLASSIFY)));
+        counts.put(FACET_STOCK_STATUS, enumCounts(facets.byStockStatus, combine(filters, FACET_STOCK_STATUS)));
+        counts.put(FACET_GAMES, gameCounts(combine(filters, FACET_GAMES), query.getGameIds()));
+        counts.put(FACET_PRICE, bucketCounts(facets.byPriceBucket, combine(filters, FACET_PRICE)));
+        counts.put(FACET_DISCOUNT, bucketCounts(facets.byDiscountBucket, combine(filters, FACET_DISCOUNT)));
+
+        int size = Math.min(Math.max(query.getSize(), 1), MAX_PAGE_SIZE);
+        int page = Math.max(query.getPage(), 0);
+        List<AccountInfoDto> content = page(matches, query.getSortBy(), query.getSortDir(), page, size);
+        return new CatalogQueryResultDto(content, page, size, matches.cardinality(), counts, catalogVersion);
+    }
+
+    public int size() {
+        return facets.all.cardinality();
+    }
+
+    // AND of every active filter, skipping one dimension for disjunctive facet counts
+    private BitSet combine(Map<String, BitSet> filters, String skipDimension) {
+        BitSet result = (BitSet) facets.all.clone();
+        filters.forEach((dimension, filter) -> {
+            if (filter != null && !dimension.equals(skipDimension)) {
+                result.and(filter);
+            }
+        });
+        return result;
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> index, Collection<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (K value : values) {
+            BitSet bits = index.get(value);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private static <K> BitSet intersection(Map<K, BitSet> index, Collection<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        for (K value : values) {
+            BitSet bits = index.get(value);
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) bits.clone();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    private static <K extends Enum<K>> List<FacetCount> enumCounts(Map<K, BitSet> index, BitSet base) {
+        List<FacetCount> counts = new ArrayList<>();
+        index.forEach((value, bits) ->
+            counts.add(new FacetCount(value.name(), value.name(), intersectionCount(base, bits))));
+        return counts;
+    }
+
+    // Top games by count, always including the ones the caller selected
+    private List<FacetCount> gameCounts(BitSet base, Collection<Long> selected) {
+        List<FacetCount> counts = new ArrayList<>();
+        facets.byGame.forEach((gameId, bits) -> {
+            long count = intersectionCount(base, bits);
+            if (count > 0 || (selected != null && selected.contains(gameId))) {
+                counts.add(new FacetCount(String.valueOf(gameId), facets.gameNames.get(gameId), count));
+            }
+        });
+        counts.sort(Comparator.comparingLong(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getLabel, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        List<FacetCount> top = new ArrayList<>(counts.subList(0, Math.min(MAX_GAME_FACETS, counts.size())));
+        for (FacetCount count : counts.subList(top.size(), counts.size())) {
+            if (selected != null && selected.contains(Long.valueOf(count.getValue()))) {
+                top.add(count);
+            }
+        }
+        return top;
+    }
+
+    private static List<FacetCount> bucketCounts(Map<String, BitSet> buckets, BitSet base) {
+        List<FacetCount> counts = new ArrayList<>();
+        buckets.forEach((label, bits) -> counts.add(new FacetCount(label, label, intersectionCount(base, bits))));
+        return counts;
+    }
+
+    private static long intersectionCount(BitSet base, BitSet bits) {
+        BitSet overlap = (BitSet) base.clone();
+        overlap.and(bits);
+        return overlap.cardinality();
+    }
+
+    /**
+     * Walk a pre-sorted position array and keep matching listings, so no per-request sort is needed
+     */
+    private List<AccountInfoDto> page(BitSet matches, String sortBy, String sortDir, int page, int size) {
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+        int[] order;
+        if ("price".equals(sortBy)) {
+            order = priceColumn.positions;
+        } else if ("discount".equals(sortBy) || "discountPercentage".equals(sortBy)) {
+            order = discountColumn.positions;
+        } else if ("name".equals(sortBy)) {
+            order = nameColumn.positions;
+        } else {
+            // Oldest first is the natural position order, so newest first walks it backwards
+            order = null;
+        }
+
+        long skip = (long) page * size;
+        List<AccountInfoDto> content = new ArrayList<>(size);
+        int length = order != null ? order.length : listings.length;
+        for (int i = 0; i < length && content.size() < size; i++) {
+            int index = ascending ? i : length - 1 - i;
+            int position = order != null ? order[index] : index;
+            if (matches.get(position)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(listings[position]);
+                }
+            }
+        }
+        return content;
+    }
+
+    private static String priceBucket(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            return null;
+        }
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            if (price.compareTo(BigDecimal.valueOf(PRICE_BUCKETS[i])) < 0) {
+                return PRICE_LABELS[i];
+            }
+        }
+        return PRICE_LABELS[PRICE_BUCKETS.length];
+    }
+
+    private static String discountBucket(int discount) {
+        for (int i = DISCOUNT_BUCKETS.length - 1; i >= 0; i--) {
+            if (discount >= DISCOUNT_BUCKETS[i]) {
+                return DISCOUNT_LABELS[i];
+            }
+        }
+        return null;
+    }
+
+    private static String[] priceLabels() {
+        String[] labels = new String[PRICE_BUCKETS.length + 1];
+        long lower = 0;
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            labels[i] = lower + "-" + PRICE_BUCKETS[i];
+            lower = PRICE_BUCKETS[i];
+        }
+        labels[PRICE_BUCKETS.length] = lower + "+";
+        return labels;
+    }
+
+    private static String[] discountLabels() {
+        String[] labels = new String[DISCOUNT_BUCKETS.length];
+        for (int i = 0; i < DISCOUNT_BUCKETS.length; i++) {
+            int from = DISCOUNT_BUCKETS[i];
+            Integer to = i + 1 < DISCOUNT_BUCKETS.length ? DISCOUNT_BUCKETS[i + 1] : null;
+            labels[i] = to == null ? from + "+" : (to - 1 == from ? String.valueOf(from) : from + "-" + (to - 1));
+        }
+        return labels;
+    }
+
+    /**
+     * Position bitsets per facet value. A patched copy shares every bitset with its source and
+     * clones one only before changing it; nothing is changed once sealed.
+     */
+    private static final class Facets {
+        private final BitSet all;
+        private final Map<AccountType, BitSet> byAccountType;
+        private final Map<AccountClassification, BitSet> byClassify;
+        private final Map<AccountStockStatus, BitSet> byStockStatus;
+        private final Map<Long, BitSet> byGame;
+        // Bucket label -> listings in that bucket, buckets kept in ascending order
+        private final Map<String, BitSet> byPriceBucket;
+        private final Map<String, BitSet> byDiscountBucket;
+        private Map<Long, String> gameNames;
+        // Bitsets this instance may still change; null once sealed
+        private Set<BitSet> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean ownsGameNames;
+
+        private Facets() {
+            this.all = new BitSet();
+            this.byAccountType = new EnumMap<>(AccountType.class);
+            this.byClassify = new EnumMap<>(AccountClassification.class);
+            this.byStockStatus = new EnumMap<>(AccountStockStatus.class);
+            this.byGame = new HashMap<>();
+            this.byPriceBucket = new LinkedHashMap<>();
+            this.byDiscountBucket = new LinkedHashMap<>();
+            this.gameNames = new HashMap<>();
+            this.ownsGameNames = true;
+            for (String label : PRICE_LABELS) {
+                byPriceBucket.put(label, owned(new BitSet()));
+            }
+            for (String label : DISCOUNT_LABELS) {
+                byDiscountBucket.put(label, owned(new BitSet()));
+            }
+        }
+
+        private Facets(Facets source) {
+            this.all = (BitSet) source.all.clone();
+            this.byAccountType = new EnumMap<>(source.byAccountType);
+            this.byClassify = new EnumMap<>(source.byClassify);
+            this.byStockStatus = new EnumMap<>(source.byStockStatus);
+            this.byGame = new HashMap<>(source.byGame);
+            this.byPriceBucket = new LinkedHashMap<>(source.byPriceBucket);
+            this.byDiscountBucket = new LinkedHashMap<>(source.byDiscountBucket);
+            this.gameNames = source.gameNames;
+        }
+
+        private void add(int position, CatalogSnapshot.Listing listing) {
+            AccountInfoDto summary = listing.getSummary();
+            all.set(position);
+            set(byAccountType, summary.getAccountType(), position, true, true);
+            set(byClassify, summary.getClassify(), position, true, true);
+            for (AccountStockStatus status : listing.getStockStatuses()) {
+                set(byStockStatus, status, position, true, true);
+            }
+            if (summary.getGames() != null) {
+                for (GameDto game : summary.getGames()) {
+                    set(byGame, game.getId(), position, true, true);
+                    nameGame(game);
+                }
+            }
+            set(byPriceBucket, priceBucket(PRICE.apply(summary)), position, true, false);
+            set(byDiscountBucket, discountBucket(DISCOUNT.apply(summary)), position, true, false);
+        }
+
+        private void remove(int position, AccountInfoDto summary) {
+            all.clear(position);
+            set(byAccountType, summary.getAccountType(), position, false, true);
+            set(byClassify, summary.getClassify(), position, false, true);
+            for (AccountStockStatus status : AccountStockStatus.values()) {
+                set(byStockStatus, status, position, false, true);
+            }
+            if (summary.getGames() != null) {
+                for (GameDto game : summary.getGames()) {
+                    set(byGame, game.getId(), position, false, true);
+                }
+            }
+            set(byPriceBucket, priceBucket(PRICE.apply(summary)), position, false, false);
+            set(byDiscountBucket, discountBucket(DISCOUNT.apply(summary)), position, false, false);
+        }
+
+        private void seal() {
+            owned = null;
+        }
+
+        // Facet values with no listings left are dropped, as a full build would never create them
+        private <K> void set(Map<K, BitSet> index, K key, int position, boolean value, boolean dropEmpty) {
+            if (key == null) {
+                return;
+            }
+            BitSet bits = index.get(key);
+            if (bits == null) {
+                if (!value) {
+                    return;
+                }
+                bits = owned(new BitSet());
+                index.put(key, bits);
+            } else if (bits.get(position) == value) {
+                return;
+            } else if (!owned.contains(bits)) {
+                bits = owned((BitSet) bits.clone());
+                index.put(key, bits);
+            }
+            bits.set(position, value);
+            if (dropEmpty && bits.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        private BitSet owned(BitSet bits) {
+            owned.add(bits);
+            return bits;
+        }
+
+        private void nameGame(GameDto game) {
+            if (gameNames.containsKey(game.getId())) {
+                return;
+            }
+            if (!ownsGameNames) {
+                gameNames = new HashMap<>(gameNames);
+                ownsGameNames = true;
+            }
+            gameNames.put(game.getId(), game.getName());
+        }
+    }
+
+    /**
+     * Listing positions sorted by a value, with binary-searchable range lookups. Equal values keep
+     * the newest listing first. Listings without a value are left out unless keepNulls is set.
+     */
+    private static final class SortedColumn<T> {
+        private final Function<AccountInfoDto, T> extractor;
+        private final Comparator<? super T> order;
+        private final boolean keepNulls;
+        private final int[] positions;
+        private final List<T> values;
+
+        private SortedColumn(AccountInfoDto[] listings, Function<AccountInfoDto, T> extractor,
+                             Comparator<? super T> order, boolean keepNulls) {
+            this.extractor = extractor;
+            this.order = order;
+            this.keepNulls = keepNulls;
+            List<Integer> withValue = new ArrayList<>();
+            for (int position = 0; position < listings.length; position++) {
+                if (hasValue(listings[position])) {
+                    withValue.add(position);
+                }
+            }
+            withValue.sort(entryOrder(listings));
+            this.positions = withValue.stream().mapToInt(Integer::intValue).toArray();
+            this.values = withValue.stream().map(position -> extractor.apply(listings[position])).toList();
+        }
+
+        private SortedColumn(SortedColumn<T> source, int[] positions, List<T> values) {
+            this.extractor = source.extractor;
+            this.order = source.order;
+            this.keepNulls = source.keepNulls;
+            this.positions = positions;
+            this.values = values;
+        }
+
+        /**
+         * Copy with the changed positions taken out and put back at their new values; one merge pass, no sort of the rest
+         */
+        private SortedColumn<T> with(AccountInfoDto[] listings, Set<Integer> changed) {
+            List<Integer> reinserted = new ArrayList<>();
+            for (Integer position : changed) {
+                if (hasValue(listings[position])) {
+                    reinserted.add(position);
+                }
+            }
+            Comparator<Integer> entryOrder = entryOrder(listings);
+            reinserted.sort(entryOrder);
+
+            int length = 0;
+            for (int position : positions) {
+                if (!changed.contains(position)) {
+                    length++;
+                }
+            }
+            int[] nextPositions = new int[length + reinserted.size()];
+            List<T> nextValues = new ArrayList<>(nextPositions.length);
+            int next = 0;
+            int i = 0;
+            for (int position : positions) {
+                if (changed.contains(position)) {
+                    continue;
+                }
+                while (next < reinserted.size() && entryOrder.compare(reinserted.get(next), position) < 0) {
+                    nextPositions[i++] = reinserted.get(next);
+                    nextValues.add(extractor.apply(listings[reinserted.get(next++)]));
+                }
+                nextPositions[i++] = position;
+                nextValues.add(extractor.apply(listings[position]));
+            }
+            while (next < reinserted.size()) {
+                nextPositions[i++] = reinserted.get(next);
+                nextValues.add(extractor.apply(listings[reinserted.get(next++)]));
+            }
+            return new SortedColumn<>(this, nextPositions, Collections.unmodifiableList(nextValues));
+        }
+
+        private boolean hasValue(AccountInfoDto listing) {
+            return listing != null && (keepNulls || extractor.apply(listing) != null);
+        }
+
+        private Comparator<Integer> entryOrder(AccountInfoDto[] listings) {
+            Comparator<Integer> byValue = Comparator.comparing(position -> extractor.apply(listings[position]), order);
+            return byValue.thenComparing(Comparator.reverseOrder());
+        }
+
+        // Inclusive bounds; a null bound is open
+        private BitSet range(T min, T max) {
+            int from = min != null ? firstAtLeast(min) : 0;
+            int to = max != null ? firstGreaterThan(max) : positions.length;
+            BitSet bits = new BitSet();
+            for (int i = from; i < to; i++) {
+                bits.set(positions[i]);
+            }
+            return bits;
+        }
+
+        private int firstAtLeast(T value) {
+            int low = 0;
+            int high = values.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(values.get(mid), value) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int firstGreaterThan(T value) {
+            int low = 0;
+            int high = values.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(values.get(mid), value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.shopaccgame.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized bodies of the largest catalog responses, kept as identity and gzip byte arrays
+ * per catalog version and response format (JSON, Smile or CBOR). A hit hands the stored array
+ * straight to the response; Jackson and the compressor only run once per key after each catalog change.
+ */
+@Service
+public class CatalogResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+    // Below this gzip saves less than the header and deflate overhead costs
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ResponseFormats responseFormats;
+
+    // One entry per endpoint, parameter combination and format; stale versions are replaced in place.
+    // Entries are serializations that may still be running, so concurrent misses share one
+    private final Map<String, Serialization> responses = new ConcurrentHashMap<>();
+
+    public static final class CachedResponse {
+        private final long version;
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        private CachedResponse(long version, byte[] identity, byte[] gzip) {
+            this.version = version;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getSize() {
+            return identity.length;
+        }
+    }
+
+    /**
+     * Cached bytes for key at the current catalog version, serializing body on a miss.
+     * body must read data at least as new as the version, i.e. the snapshot or the database,
+     * never a cache that can lag behind it. Concurrent misses on the same key wait for a single
+     * serialization, which runs on the calling thread outside the map.
+     */
+    public CachedResponse get(String key, MediaType format, Supplier<?> body) {
+        long version = catalogService.getSnapshot().getVersion();
+        String formatKey = key + "|" + format;
+        while (true) {
+            Serialization current = responses.get(formatKey);
+            if (current != null && current.version >= version) {
+                return current.await(formatKey);
+            }
+            Serialization serialization = new Serialization(version,
+                () -> serialize(formatKey, format, version, body.get()));
+            boolean installed = current == null
+                ? responses.putIfAbsent(formatKey, serialization) == null
+                : responses.replace(formatKey, current, serialization);
+            if (installed) {
+                serialization.run();
+                if (serialization.failed()) {
+                    // Let the next request try again instead of handing every caller the same failure
+                    responses.remove(formatKey, serialization);
+                }
+                return serialization.await(formatKey);
+            }
+        }
+    }
+
+    /**
+     * Response for key in the format the Accept header asks for, gzip-encoded when the client accepts it
+     */
+    public ResponseEntity<byte[]> respond(String key, String accept, String acceptEncoding, Supplier<?> body) {
+        MediaType format = ResponseFormats.negotiate(accept);
+        CachedResponse cached = get(key, format, body);
+        boolean gzip = cached.gzip != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(format)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        byte[] bytes = gzip ? cached.gzip : cached.identity;
+        return builder.contentLength(bytes.length).body(bytes);
+    }
+
+    private static final class Serialization extends FutureTask<CachedResponse> {
+        private final long version;
+        private volatile boolean failed;
+
+        private Serialization(long version, Callable<CachedResponse> serialize) {
+            super(serialize);
+            this.version = version;
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            failed = true;
+            super.setException(t);
+        }
+
+        private boolean failed() {
+            return failed;
+        }
+
+        private CachedResponse await(String key) {
+            try {
+                return get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for catalog response " + key, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new RuntimeException("Failed to serialize catalog response " + key, e.getCause());
+            }
+        }
+    }
+
+    private CachedResponse serialize(String key, MediaType format, long version, Object body) {
+        long start = System.currentTimeMillis();
+        try {
+            byte[] identity = responseFormats.objectMapper(format).writeValueAsBytes(body);
+            byte[] gzip = identity.length >= MIN_GZIP_SIZE ? gzip(identity) : null;
+            logger.debug("Cached {} for catalog v{}: {} bytes, {} gzipped in {}ms", key, version,
+                identity.length, gzip != null ? gzip.length : "not", System.currentTimeMillis() - start);
+            return new CachedResponse(version, identity, gzip);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize catalog response " + key, e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // "gzip" or "*" without an explicit q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) {
+                    refused = true;
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,383 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.CatalogQueryDto;
+import com.shopaccgame.dto.CatalogQueryResultDto;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.GameRepository;
+import com.shopaccgame.repository.SteamAccountRepository;
+import com.shopaccgame.repository.projection.AccountGameView;
+import com.shopaccgame.repository.projection.AccountInfoSummaryView;
+import com.shopaccgame.repository.projection.GameNameView;
+import com.shopaccgame.repository.projection.SteamAccountCardView;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Serves public catalog reads from an immutable CatalogSnapshot held in an AtomicReference.
+ * Readers never lock or touch the database once the snapshot is built; writers publish a
+ * CatalogChangedEvent and the affected listings are reloaded after their transaction commits.
+ * Events only mark what changed; a single refresh thread reloads everything marked since its
+ * last run in one batch, so a checkout touching many listings costs the request thread nothing
+ * and the snapshot one patch. Snapshot updates hold writeLock from load to swap, so a full
+ * rebuild that read the database before a listing changed can never replace the snapshot
+ * after that listing was reloaded. Every update reads in one REPEATABLE READ transaction, so the
+ * cards, summaries and game chips it combines all come from the same committed state.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogService.class);
+
+    private static final Duration STARTUP_RETRY_DELAY = Duration.ofSeconds(5);
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    // Released once the first snapshot is set; readers arriving before that wait on it
+    private final CountDownLatch firstSnapshot = new CountDownLatch(1);
+
+    @Value("${app.catalog.startup-wait:10s}")
+    private Duration startupWait;
+    private final Object writeLock = new Object();
+
+    // Changes recorded by events and not yet applied by the refresh thread
+    private final Set<Long> pendingListings = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingGames = new AtomicBoolean();
+    private final AtomicBoolean pendingFullRebuild = new AtomicBoolean();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private ExecutorService refreshExecutor;
+    // Own transaction whatever the caller runs in: the refresh thread has none, and the class-level one is READ COMMITTED
+    private TransactionTemplate snapshotTransaction;
+
+    // Snapshot versions restart at 1 on every boot; the boot id keeps ETags from colliding across restarts
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    @PostConstruct
+    void init() {
+        snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTransaction.setReadOnly(true);
+        refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        refreshExecutor.shutdown();
+        // Anything left pending is picked up by the first rebuild after restart
+        refreshExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Current snapshot. Before the first one is built, waits up to app.catalog.startup-wait for the
+     * startup build instead of running a build on the request thread, then answers 503
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        try {
+            firstSnapshot.await(startupWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        current = snapshot.get();
+        if (current == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Catalog is still loading");
+        }
+        return current;
+    }
+
+    /**
+     * Strong ETag for every response derived from the current catalog version
+     */
+    public String getCatalogETag() {
+        return "\"catalog-" + bootId + "-" + getSnapshot().getVersion() + "\"";
+    }
+
+    /**
+     * When the catalog last changed, for Last-Modified / If-Modified-Since
+     */
+    public long getCatalogLastModified() {
+        return getSnapshot().getBuiltAt().toEpochMilli();
+    }
+
+    /**
+     * Faceted query over the current snapshot; no SQL is issued
+     */
+    public CatalogQueryResultDto query(CatalogQueryDto query) {
+        CatalogSnapshot current = getSnapshot();
+        return current.getFacetIndex().query(query, current.getVersion());
+    }
+
+    /**
+     * Build the first snapshot on the refresh thread, retrying until it succeeds; readers wait for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refreshExecutor.execute(() -> {
+            while (snapshot.get() == null && !refreshExecutor.isShutdown()) {
+                try {
+                    rebuildAll();
+                } catch (Exception e) {
+                    logger.error("Failed to build catalog snapshot at startup, retrying in {}s: {}",
+                        STARTUP_RETRY_DELAY.toSeconds(), e.getMessage());
+                    try {
+                        Thread.sleep(STARTUP_RETRY_DELAY.toMillis());
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Safety net for changes that bypass the event (manual SQL, bulk imports)
+     */
+    @Scheduled(fixedRate = 300000, initialDelay = 300000) // Run every 5 minutes
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // reads in snapshotTransaction
+    public void scheduledRebuild() {
+        if (snapshot.get() != null) {
+            rebuild(true);
+        }
+    }
+
+    /**
+     * Record what changed once the writer's transaction has committed, so the snapshot never
+     * shows uncommitted or rolled-back data, and hand the reload to the refresh thread.
+     * Runs straight away when published outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isFullRebuild()) {
+            pendingFullRebuild.set(true);
+        } else if (event.isGamesOnly()) {
+            pendingGames.set(true);
+        } else {
+            pendingListings.add(event.getAccountInfoId());
+        }
+        if (refreshQueued.compareAndSet(false, true)) {
+            refreshExecutor.execute(this::refreshPending);
+        }
+    }
+
+    /**
+     * Apply every change recorded since the last run as one snapshot update
+     */
+    private void refreshPending() {
+        // Cleared first: an event arriving while this run loads queues another run
+        refreshQueued.set(false);
+        try {
+            synchronized (writeLock) {
+                boolean fullRebuild = pendingFullRebuild.getAndSet(false);
+                boolean games = pendingGames.getAndSet(false);
+                Set<Long> accountInfoIds = new HashSet<>(pendingListings);
+                pendingListings.removeAll(accountInfoIds);
+                if (snapshot.get() == null) {
+                    // Nothing to patch yet; any build still running held the lock, so the next one reads these changes
+                    return;
+                }
+                snapshotTransaction.executeWithoutResult(status -> {
+                    if (fullRebuild) {
+                        loadAll(false);
+                        return;
+                    }
+                    if (!accountInfoIds.isEmpty()) {
+                        rebuildListings(accountInfoIds);
+                    }
+                    if (games) {
+                        rebuildGameNameIndex();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the scheduled rebuild will catch up
+            logger.error("Failed to refresh catalog snapshot: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the whole snapshot from the database
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // reads in snapshotTransaction
+    public CatalogSnapshot rebuildAll() {
+        return rebuild(false);
+    }
+
+    /**
+     * @param keepIfUnchanged keep the current snapshot (and so its version and ETag) when the
+     *                        reloaded content hashes the same; event-driven rebuilds always swap
+     *                        because they may cover fields the snapshot does not hold (e.g. game descriptions)
+     */
+    private CatalogSnapshot rebuild(boolean keepIfUnchanged) {
+        synchronized (writeLock) {
+            return snapshotTransaction.execute(status -> loadAll(keepIfUnchanged));
+        }
+    }
+
+    /**
+     * Body of rebuild; caller holds writeLock and runs it in snapshotTransaction
+     */
+    private CatalogSnapshot loadAll(boolean keepIfUnchanged) {
+        long start = System.currentTimeMillis();
+
+        // Every IN_STOCK account is a card, so the card owners are exactly the listings to show
+        List<SteamAccountCardView> cards = steamAccountRepository.findAvailableCards();
+        Map<Long, List<SteamAccountCardView>> cardsByAccountInfo = cards.stream()
+            .collect(Collectors.groupingBy(SteamAccountCardView::getAccountInfoId));
+        Set<Long> accountInfoIds = cardsByAccountInfo.keySet();
+        Map<Long, AccountInfoSummaryView> summaryById = loadSummaries(accountInfoIds);
+        Map<Long, List<GameDto>> gamesByAccountInfo = loadGameChips(accountInfoIds);
+
+        Map<Long, CatalogSnapshot.Listing> listings = new HashMap<>();
+        for (Long accountInfoId : accountInfoIds) {
+            AccountInfoSummaryView summary = summaryById.get(accountInfoId);
+            if (summary != null) {
+                listings.put(accountInfoId, toListing(summary, cardsByAccountInfo.get(accountInfoId),
+                    gamesByAccountInfo.getOrDefault(accountInfoId, List.of())));
+            }
+        }
+        GameNameIndex gameNameIndex = loadGameNameIndex();
+
+        CatalogSnapshot current = snapshot.get();
+        CatalogSnapshot rebuilt = new CatalogSnapshot(current != null ? current.getVersion() + 1 : 1, listings, gameNameIndex);
+        CatalogSnapshot next = keepIfUnchanged && current != null && current.getContentHash() == rebuilt.getContentHash()
+            ? current : rebuilt;
+        snapshot.set(next);
+        firstSnapshot.countDown();
+        logger.info("Built catalog snapshot v{}: {} listings, {} cards in {}ms",
+            next.getVersion(), listings.size(), cards.size(), System.currentTimeMillis() - start);
+        return next;
+    }
+
+    /**
+     * Reload the given listings and swap in a snapshot patched with just those entries;
+     * caller holds writeLock and runs it in snapshotTransaction
+     */
+    private void rebuildListings(Set<Long> accountInfoIds) {
+        Map<Long, List<SteamAccountCardView>> cardsByAccountInfo = new HashMap<>();
+        IdChunks.forEachChunk(accountInfoIds, chunk -> {
+            for (SteamAccountCardView card : steamAccountRepository.findAvailableCardsByAccountInfoIds(chunk)) {
+                cardsByAccountInfo.computeIfAbsent(card.getAccountInfoId(), id -> new ArrayList<>()).add(card);
+            }
+        });
+        Map<Long, AccountInfoSummaryView> summaryById = loadSummaries(cardsByAccountInfo.keySet());
+        Map<Long, List<GameDto>> gamesByAccountInfo = loadGameChips(summaryById.keySet());
+
+        // Listings left without cards (or deleted) are removed
+        Map<Long, CatalogSnapshot.Listing> changes = new HashMap<>();
+        for (Long accountInfoId : accountInfoIds) {
+            AccountInfoSummaryView summary = summaryById.get(accountInfoId);
+            changes.put(accountInfoId, summary == null ? null : toListing(summary, cardsByAccountInfo.get(accountInfoId),
+                gamesByAccountInfo.getOrDefault(accountInfoId, List.of())));
+        }
+        CatalogSnapshot next = snapshot.updateAndGet(current -> current != null ? current.withListings(changes) : null);
+        if (next != null) {
+            logger.debug("Refreshed {} catalog listings (snapshot v{})", changes.size(), next.getVersion());
+        }
+    }
+
+    /**
+     * Reload game names only; listings are carried over unchanged; caller holds writeLock and runs it
+     * in snapshotTransaction
+     */
+    private void rebuildGameNameIndex() {
+        GameNameIndex gameNameIndex = loadGameNameIndex();
+        snapshot.updateAndGet(current -> current != null ? current.withGameNameIndex(gameNameIndex) : null);
+        logger.debug("Rebuilt game name index with {} games", gameNameIndex.size());
+    }
+
+    private GameNameIndex loadGameNameIndex() {
+        List<GameNameView> gameNames = gameRepository.findAllProjectedBy(Sort.by("name"));
+        return new GameNameIndex(gameNames);
+    }
+
+    private Map<Long, AccountInfoSummaryView> loadSummaries(Collection<Long> accountInfoIds) {
+        Map<Long, AccountInfoSummaryView> summaryById = new HashMap<>();
+        IdChunks.forEachChunk(accountInfoIds, chunk -> {
+            for (AccountInfoSummaryView summary : accountInfoRepository.findSummariesByIds(chunk)) {
+                summaryById.put(summary.getId(), summary);
+            }
+        });
+        return summaryById;
+    }
+
+    /**
+     * Load game chips (id, name, image) for many listings with one query per chunk of ids
+     */
+    public Map<Long, List<GameDto>> loadGameChips(Collection<Long> accountInfoIds) {
+        Map<Long, List<GameDto>> gamesByAccountInfo = new HashMap<>();
+        IdChunks.forEachChunk(accountInfoIds, chunk -> {
+            for (AccountGameView view : accountInfoRepository.findGameViewsByAccountInfoIds(chunk)) {
+                gamesByAccountInfo.computeIfAbsent(view.getAccountInfoId(), id -> new ArrayList<>())
+                    .add(new GameDto(view));
+            }
+        });
+        return gamesByAccountInfo;
+    }
+
+    private CatalogSnapshot.Listing toListing(AccountInfoSummaryView summary, List<SteamAccountCardView> cards,
+                                              List<GameDto> games) {
+        List<GameDto> chips = List.copyOf(games);
+        AccountInfoDto summaryDto = new AccountInfoDto(summary, new HashSet<>(chips));
+        List<SteamAccountDto> cardDtos = cards.stream()
+            .map(card -> new SteamAccountDto(card, chips))
+            .collect(Collectors.toList());
+        return new CatalogSnapshot.Listing(summaryDto, cardDtos);
+    }
+}
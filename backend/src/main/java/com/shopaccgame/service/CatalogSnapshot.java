@@ -0,0 +1,404 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.projection.GameNameView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, read-optimized view of the storefront: available listings and cards
+ * pre-grouped by account type and by game. A snapshot is never modified once built;
+ * CatalogService publishes a new instance on every change. DTOs handed out are shared
+ * between requests and must be treated as read-only. withListings copies only the groups
+ * a changed listing belongs to; every other list is shared with the previous snapshot.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * Sortable card properties, keyed by the entity paths produced by createListingPageable.
+     * Nulls sort like PostgreSQL: last when ascending, first when descending.
+     */
+    private static final Map<String, Comparator<SteamAccountDto>> CARD_COMPARATORS = Map.of(
+        "id", nullsLast(SteamAccountDto::getId),
+        "updatedAt", nullsLast(SteamAccountDto::getUpdatedAt),
+        "accountInfo.name", nullsLast(SteamAccountDto::getName),
+        "accountInfo.price", nullsLast(SteamAccountDto::getPrice),
+        "accountInfo.originalPrice", nullsLast(SteamAccountDto::getOriginalPrice),
+        "accountInfo.discountPercentage", nullsLast(SteamAccountDto::getDiscountPercentage)
+    );
+
+    private static final Comparator<SteamAccountDto> NEWEST_FIRST = CARD_COMPARATORS.get("id").reversed();
+    private static final Comparator<AccountInfoDto> NEWEST_LISTING_FIRST =
+        Comparator.comparing(AccountInfoDto::getId).reversed();
+
+    /**
+     * Everything the storefront shows for one AccountInfo that has IN_STOCK or PRE_ORDER accounts
+     */
+    public static final class Listing {
+
+        private final AccountInfoDto summary;
+        private final List<SteamAccountDto> cards;
+        private final Set<AccountStockStatus> stockStatuses;
+        private final long contentHash;
+
+        public Listing(AccountInfoDto summary, List<SteamAccountDto> cards) {
+            this.summary = summary;
+            this.cards = List.copyOf(cards);
+            this.stockStatuses = cards.stream()
+                .map(SteamAccountDto::getStatus)
+                .collect(Collectors.toUnmodifiableSet());
+            long hash = Objects.hash(summary.getId(), summary.getUpdatedAt(), summary.getAvailableStockCount(),
+                summary.getPrice(), summary.getOriginalPrice(), summary.getDiscountPercentage(), summary.getGameIds());
+            for (SteamAccountDto card : this.cards) {
+                hash = 31 * hash + Objects.hash(card.getId(), card.getStatus(), card.getUpdatedAt(), card.getVerifyDate());
+            }
+            this.contentHash = hash;
+        }
+
+        public Long getAccountInfoId() {
+            return summary.getId();
+        }
+
+        public AccountType getAccountType() {
+            return summary.getAccountType();
+        }
+
+        public AccountInfoDto getSummary() {
+            return summary;
+        }
+
+        public List<SteamAccountDto> getCards() {
+            return cards;
+        }
+
+        public Set<Long> getGameIds() {
+            return summary.getGameIds() != null ? summary.getGameIds() : Set.of();
+        }
+
+        public Set<AccountStockStatus> getStockStatuses() {
+            return stockStatuses;
+        }
+
+        // Listings with only PRE_ORDER accounts are kept for cards and facets but not listed as in stock
+        public boolean isInStock() {
+            return summary.getAvailableStockCount() > 0;
+        }
+    }
+
+    private final long version;
+    private final Instant builtAt;
+    // Sum of the listing hashes, so a patch can take out old listings and add new ones
+    private final long listingsHash;
+    private final long gameNamesHash;
+    private final Map<Long, Listing> listings;
+    private final GameNameIndex gameNameIndex;
+    private final CatalogFacetIndex facetIndex;
+
+    private final List<AccountInfoDto> availableListings;
+    private final Map<AccountType, List<AccountInfoDto>> availableListingsByType;
+    private final List<SteamAccountDto> availableCards;
+    private final Map<AccountType, List<SteamAccountDto>> availableCardsByType;
+    private final Map<Long, List<SteamAccountDto>> availableCardsByGame;
+
+    // Sorted card views are derived lazily per (type, sort); memoizing them does not change what the snapshot returns
+    private final Map<String, List<SteamAccountDto>> sortedCards = new ConcurrentHashMap<>();
+
+    public CatalogSnapshot(long version, Map<Long, Listing> listings, GameNameIndex gameNameIndex) {
+        this.version = version;
+        this.builtAt = Instant.now();
+        this.listings = Collections.unmodifiableMap(new HashMap<>(listings));
+        this.gameNameIndex = gameNameIndex;
+
+        List<Listing> newestFirst = new ArrayList<>(listings.values());
+        newestFirst.sort(Comparator.comparing(Listing::getAccountInfoId).reversed());
+
+        List<AccountInfoDto> summaries = new ArrayList<>();
+        Map<AccountType, List<AccountInfoDto>> summariesByType = new EnumMap<>(AccountType.class);
+        List<SteamAccountDto> cards = new ArrayList<>();
+        Map<AccountType, List<SteamAccountDto>> cardsByType = new EnumMap<>(AccountType.class);
+        Map<Long, List<SteamAccountDto>> cardsByGame = new HashMap<>();
+        long hash = 0;
+        for (Listing listing : newestFirst) {
+            if (listing.isInStock()) {
+                summaries.add(listing.getSummary());
+                summariesByType.computeIfAbsent(listing.getAccountType(), type -> new ArrayList<>()).add(listing.getSummary());
+            }
+            cards.addAll(listing.getCards());
+            cardsByType.computeIfAbsent(listing.getAccountType(), type -> new ArrayList<>()).addAll(listing.getCards());
+            for (Long gameId : listing.getGameIds()) {
+                cardsByGame.computeIfAbsent(gameId, id -> new ArrayList<>()).addAll(listing.getCards());
+            }
+            hash += listing.contentHash;
+        }
+        cards.sort(NEWEST_FIRST);
+        cardsByType.values().forEach(list -> list.sort(NEWEST_FIRST));
+        cardsByGame.values().forEach(list -> list.sort(NEWEST_FIRST));
+
+        this.availableListings = List.copyOf(summaries);
+        this.availableListingsByType = freeze(summariesByType);
+        this.availableCards = List.copyOf(cards);
+        this.availableCardsByType = freeze(cardsByType);
+        this.availableCardsByGame = freeze(cardsByGame);
+        this.facetIndex = new CatalogFacetIndex(newestFirst);
+        this.listingsHash = hash;
+        this.gameNamesHash = gameNamesHash(gameNameIndex);
+    }
+
+    private CatalogSnapshot(CatalogSnapshot previous, Map<Long, Listing> listings, long listingsHash,
+                            GameNameIndex gameNameIndex, CatalogFacetIndex facetIndex,
+                            List<AccountInfoDto> availableListings,
+                            Map<AccountType, List<AccountInfoDto>> availableListingsByType,
+                            List<SteamAccountDto> availableCards,
+                            Map<AccountType, List<SteamAccountDto>> availableCardsByType,
+                            Map<Long, List<SteamAccountDto>> availableCardsByGame) {
+        this.version = previous.version + 1;
+        this.builtAt = Instant.now();
+        this.listings = listings;
+        this.listingsHash = listingsHash;
+        this.gameNamesHash = gameNameIndex == previous.gameNameIndex ? previous.gameNamesHash : gameNamesHash(gameNameIndex);
+        this.gameNameIndex = gameNameIndex;
+        this.facetIndex = facetIndex;
+        this.availableListings = availableListings;
+        this.availableListingsByType = availableListingsByType;
+        this.availableCards = availableCards;
+        this.availableCardsByType = availableCardsByType;
+        this.availableCardsByGame = availableCardsByGame;
+    }
+
+    /**
+     * Copy of this snapshot with some listings replaced, added or (null value) removed.
+     * Only the type and game groups those listings leave or join are rebuilt, by merging the
+     * new entries into the already sorted lists.
+     */
+    public CatalogSnapshot withListings(Map<Long, Listing> changes) {
+        Map<Long, Listing> next = new HashMap<>(listings);
+        Set<AccountType> types = new HashSet<>();
+        Set<Long> gameIds = new HashSet<>();
+        List<AccountInfoDto> addedSummaries = new ArrayList<>();
+        List<SteamAccountDto> addedCards = new ArrayList<>();
+        long hash = listingsHash;
+        for (Map.Entry<Long, Listing> change : changes.entrySet()) {
+            Listing listing = change.getValue();
+            Listing previous = listing != null ? next.put(change.getKey(), listing) : next.remove(change.getKey());
+            for (Listing touched : new Listing[] { previous, listing }) {
+                if (touched != null) {
+                    types.add(touched.getAccountType());
+                    gameIds.addAll(touched.getGameIds());
+                }
+            }
+            if (previous != null) {
+                hash -= previous.contentHash;
+            }
+            if (listing != null) {
+                hash += listing.contentHash;
+                if (listing.isInStock()) {
+                    addedSummaries.add(listing.getSummary());
+                }
+                addedCards.addAll(listing.getCards());
+            }
+        }
+        addedSummaries.sort(NEWEST_LISTING_FIRST);
+        addedCards.sort(NEWEST_FIRST);
+
+        Set<Long> changedIds = changes.keySet();
+        Predicate<AccountInfoDto> changedSummary = summary -> changedIds.contains(summary.getId());
+        Predicate<SteamAccountDto> changedCard = card -> changedIds.contains(card.getAccountInfoId());
+
+        Map<AccountType, List<AccountInfoDto>> summariesByType = new EnumMap<>(AccountType.class);
+        summariesByType.putAll(availableListingsByType);
+        Map<AccountType, List<SteamAccountDto>> cardsByType = new EnumMap<>(AccountType.class);
+        cardsByType.putAll(availableCardsByType);
+        for (AccountType type : types) {
+            patchGroup(summariesByType, type, changedSummary,
+                filter(addedSummaries, summary -> summary.getAccountType() == type), NEWEST_LISTING_FIRST);
+            patchGroup(cardsByType, type, changedCard,
+                filter(addedCards, card -> next.get(card.getAccountInfoId()).getAccountType() == type), NEWEST_FIRST);
+        }
+        Map<Long, List<SteamAccountDto>> cardsByGame = new HashMap<>(availableCardsByGame);
+        for (Long gameId : gameIds) {
+            patchGroup(cardsByGame, gameId, changedCard,
+                filter(addedCards, card -> next.get(card.getAccountInfoId()).getGameIds().contains(gameId)), NEWEST_FIRST);
+        }
+
+        CatalogFacetIndex patchedIndex = facetIndex.withListings(changes);
+        CatalogSnapshot patched = new CatalogSnapshot(this, Collections.unmodifiableMap(next), hash, gameNameIndex,
+            patchedIndex != null ? patchedIndex : new CatalogFacetIndex(next.values()),
+            merge(availableListings, changedSummary, addedSummaries, NEWEST_LISTING_FIRST),
+            Collections.unmodifiableMap(summariesByType),
+            merge(availableCards, changedCard, addedCards, NEWEST_FIRST),
+            Collections.unmodifiableMap(cardsByType),
+            Collections.unmodifiableMap(cardsByGame));
+        // Sorted views of types no change touched are still valid
+        sortedCards.forEach((key, sorted) -> {
+            if (types.stream().noneMatch(type -> key.startsWith(type + ":")) && !key.startsWith("null:")) {
+                patched.sortedCards.put(key, sorted);
+            }
+        });
+        return patched;
+    }
+
+    /**
+     * Copy of this snapshot with a new game name index and the same listings
+     */
+    public CatalogSnapshot withGameNameIndex(GameNameIndex index) {
+        CatalogSnapshot patched = new CatalogSnapshot(this, listings, listingsHash, index, facetIndex,
+            availableListings, availableListingsByType, availableCards, availableCardsByType, availableCardsByGame);
+        patched.sortedCards.putAll(sortedCards);
+        return patched;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Fingerprint of what the snapshot serves; equal hashes mean a rebuild found nothing new
+     */
+    public long getContentHash() {
+        return 31 * listingsHash + gameNamesHash;
+    }
+
+    public List<GameNameView> getGameNames() {
+        return gameNameIndex.getGames();
+    }
+
+    public GameNameIndex getGameNameIndex() {
+        return gameNameIndex;
+    }
+
+    public CatalogFacetIndex getFacetIndex() {
+        return facetIndex;
+    }
+
+    public List<AccountInfoDto> getAvailableListings() {
+        return availableListings;
+    }
+
+    public List<AccountInfoDto> getAvailableListings(AccountType accountType) {
+        return availableListingsByType.getOrDefault(accountType, List.of());
+    }
+
+    public List<SteamAccountDto> getAvailableCards() {
+        return availableCards;
+    }
+
+    public List<SteamAccountDto> getAvailableCards(AccountType accountType) {
+        return availableCardsByType.getOrDefault(accountType, List.of());
+    }
+
+    public List<SteamAccountDto> getAvailableCardsByGame(Long gameId) {
+        return availableCardsByGame.getOrDefault(gameId, List.of());
+    }
+
+    /**
+     * Page of available cards, optionally restricted to one account type
+     * @return null when the pageable sorts on a property the snapshot cannot order by
+     */
+    public Page<SteamAccountDto> pageCards(AccountType accountType, Pageable pageable) {
+        Comparator<SteamAccountDto> comparator = toComparator(pageable.getSort());
+        if (comparator == null) {
+            return null;
+        }
+        List<SteamAccountDto> source = accountType != null ? getAvailableCards(accountType) : availableCards;
+        List<SteamAccountDto> sorted = sortedCards.computeIfAbsent(accountType + ":" + pageable.getSort(), key -> {
+            List<SteamAccountDto> copy = new ArrayList<>(source);
+            copy.sort(comparator);
+            return List.copyOf(copy);
+        });
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+
+    private static Comparator<SteamAccountDto> toComparator(Sort sort) {
+        if (sort.isUnsorted()) {
+            return NEWEST_FIRST;
+        }
+        Comparator<SteamAccountDto> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<SteamAccountDto> next = CARD_COMPARATORS.get(order.getProperty());
+            if (next == null) {
+                return null;
+            }
+            next = order.isAscending() ? next : next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static long gameNamesHash(GameNameIndex gameNameIndex) {
+        long hash = 17;
+        for (GameNameView game : gameNameIndex.getGames()) {
+            hash = 31 * hash + Objects.hash(game.getId(), game.getName());
+        }
+        return hash;
+    }
+
+    private static <K, V> void patchGroup(Map<K, List<V>> groups, K key, Predicate<V> removed,
+                                          List<V> additions, Comparator<V> order) {
+        List<V> patched = merge(groups.getOrDefault(key, List.of()), removed, additions, order);
+        if (patched.isEmpty()) {
+            groups.remove(key);
+        } else {
+            groups.put(key, patched);
+        }
+    }
+
+    /**
+     * Drop the removed entries from an already sorted list and merge in sorted additions, in one pass
+     */
+    private static <V> List<V> merge(List<V> current, Predicate<V> removed, List<V> additions, Comparator<V> order) {
+        List<V> merged = new ArrayList<>(current.size() + additions.size());
+        int next = 0;
+        for (V value : current) {
+            if (removed.test(value)) {
+                continue;
+            }
+            while (next < additions.size() && order.compare(additions.get(next), value) < 0) {
+                merged.add(additions.get(next++));
+            }
+            merged.add(value);
+        }
+        merged.addAll(additions.subList(next, additions.size()));
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static <V> List<V> filter(List<V> values, Predicate<V> keep) {
+        return values.stream().filter(keep).collect(Collectors.toList());
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<SteamAccountDto> nullsLast(Function<SteamAccountDto, T> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> grouped) {
+        Map<K, List<V>> frozen = new HashMap<>();
+        grouped.forEach((key, values) -> frozen.put(key, List.copyOf(values)));
+        return Collections.unmodifiableMap(frozen);
+    }
+}
@@ -0,0 +1,108 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.config.ExpiringConcurrentMapCache;
+import com.shopaccgame.config.StatisticsCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the game and account info DTO caches coherent with the database.
+ * Writers already publish CatalogChangedEvent for every change to games, listings, their
+ * game associations and stock, so the same event drives eviction once the write has committed.
+ */
+@Service
+public class EntityCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    // GameDto by id
+    public static final String GAMES = "games";
+    // AccountInfoDto by id, including its game chips and stock counts
+    public static final String ACCOUNT_INFOS = "accountInfos";
+    public static final List<String> CACHE_NAMES = List.of(GAMES, ACCOUNT_INFOS);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Runs before the catalog snapshot is rebuilt for the same event, so anything serialized
+     * for the new catalog version already reads the fresh entries
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isFullRebuild()) {
+            // A renamed or deleted game changes the chips embedded in every account info
+            clear(GAMES);
+            clear(ACCOUNT_INFOS);
+        } else if (event.isGamesOnly()) {
+            clear(GAMES);
+        } else {
+            Cache accountInfos = cacheManager.getCache(ACCOUNT_INFOS);
+            if (accountInfos != null) {
+                accountInfos.evict(event.getAccountInfoId());
+            }
+        }
+    }
+
+    /**
+     * Expired entries are otherwise only dropped when their key is looked up again
+     */
+    @Scheduled(fixedRate = 60000) // Run every minute
+    public void purgeExpired() {
+        for (String name : CACHE_NAMES) {
+            if (cacheManager.getCache(name) instanceof StatisticsCache statisticsCache
+                    && statisticsCache.getDelegate() instanceof ExpiringConcurrentMapCache expiring) {
+                int removed = expiring.purgeExpired();
+                if (removed > 0) {
+                    logger.debug("Purged {} expired entries from {} cache", removed, name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hits, misses, hit ratio and entry count per cache
+     */
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof StatisticsCache statisticsCache)) {
+                continue;
+            }
+            long hits = statisticsCache.getHits();
+            long misses = statisticsCache.getMisses();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+            stats.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+            if (statisticsCache.getNativeCache() instanceof ConcurrentMap<?, ?> entries) {
+                stats.put("size", entries.size());
+            }
+            statistics.put(name, stats);
+        }
+        return statistics;
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+            logger.debug("Cleared {} cache", name);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.repository.SteamAccountOrderRepository;
+import com.shopaccgame.repository.WalletDepositRepository;
+import com.shopaccgame.repository.projection.ExpiredOrderView;
+import com.shopaccgame.repository.projection.PendingExpiryView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expires PENDING orders and deposits within a second of their deadline without polling the database.
+ * Each one is put on an in-memory timing wheel when it is created; a one-second tick advances the
+ * wheel and expires only what came due, by id. The wheel is rebuilt from the database at startup,
+ * and the periodic sweeps in SteamAccountOrderService and WalletDepositService catch anything missed.
+ */
+@Service
+public class ExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+    private static final long TICK_MS = 1000;
+    // 64 one-second slots per level: the second level covers about an hour, the third about three days
+    private static final int WHEEL_SIZE = 64;
+    // Ids per UPDATE when many deadlines fall in the same tick
+    private static final int EXPIRY_CHUNK_SIZE = 500;
+
+    @Autowired
+    private SteamAccountOrderRepository orderRepository;
+
+    @Autowired
+    private WalletDepositRepository depositRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TimingWheel<Long> orderWheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+    private final TimingWheel<Long> depositWheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    /**
+     * Expire the order at expiresAt, once the current transaction commits
+     */
+    public void scheduleOrderExpiry(Long orderId, LocalDateTime expiresAt) {
+        afterCommit(() -> schedule(orderWheel, orderId, expiresAt));
+    }
+
+    /**
+     * Expire the deposit at expiresAt, once the current transaction commits
+     */
+    public void scheduleDepositExpiry(Long depositId, LocalDateTime expiresAt) {
+        afterCommit(() -> schedule(depositWheel, depositId, expiresAt));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<PendingExpiryView> orders = orderRepository.findPendingExpiries();
+            List<PendingExpiryView> deposits = depositRepository.findPendingExpiries();
+            orders.forEach(order -> schedule(orderWheel, order.getId(), order.getExpiresAt()));
+            deposits.forEach(deposit -> schedule(depositWheel, deposit.getId(), deposit.getExpiresAt()));
+            logger.info("Scheduled expiry of {} pending order(s) and {} pending deposit(s)", orders.size(), deposits.size());
+        } catch (Exception e) {
+            // The reconciliation sweeps still expire everything, just later
+            logger.error("Failed to rebuild expiry schedule at startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<Long> dueOrders = new ArrayList<>();
+        List<Long> dueDeposits = new ArrayList<>();
+        synchronized (orderWheel) {
+            orderWheel.advanceTo(now, dueOrders::add);
+        }
+        synchronized (depositWheel) {
+            depositWheel.advanceTo(now, dueDeposits::add);
+        }
+        if (!dueOrders.isEmpty()) {
+            expireOrders(dueOrders);
+        }
+        if (!dueDeposits.isEmpty()) {
+            expireDeposits(dueDeposits);
+        }
+    }
+
+    private void expireOrders(List<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Long> chunk : chunks(orderIds)) {
+            try {
+                List<ExpiredOrderView> expired = orderRepository.expireOrdersByIds(chunk, now);
+                if (!expired.isEmpty()) {
+                    eventPublisher.publishEvent(new OrdersExpiredEvent(expired));
+                    logger.debug("Expired orders {}", expired.stream().map(ExpiredOrderView::getOrderId).toList());
+                }
+            } catch (Exception e) {
+                // Left PENDING; the reconciliation sweep expires them
+                logger.error("Failed to expire {} order(s): {}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void expireDeposits(List<Long> depositIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Long> chunk : chunks(depositIds)) {
+            try {
+                int expired = depositRepository.expireDepositsByIds(chunk, now);
+                if (expired > 0) {
+                    logger.debug("Expired {} deposit(s)", expired);
+                }
+            } catch (Exception e) {
+                // Left PENDING; the reconciliation sweep expires them
+                logger.error("Failed to expire {} deposit(s): {}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void schedule(TimingWheel<Long> wheel, Long id, LocalDateTime expiresAt) {
+        if (id == null || expiresAt == null) {
+            return;
+        }
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            // Already overdue: due on the next tick
+            if (!wheel.add(id, deadline)) {
+                wheel.add(id, System.currentTimeMillis());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += EXPIRY_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + EXPIRY_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
@@ -5,6 +5,7 @@ import com.shopaccgame.repository.GameRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -40,6 +41,9 @@ public class GameImportService {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Import games from RAWG.io API
      * @param pageSize Number of games to import per page
@@ -76,6 +80,7 @@ public class GameImportService {
             }
             
             logger.info("Game import completed. Total imported: {}", totalImported);
+            eventPublisher.publishEvent(CatalogChangedEvent.games());
             
         } catch (Exception e) {
             logger.error("Error during game import", e);
@@ -114,6 +119,7 @@ public class GameImportService {
             }
             
             logger.info("Genre import completed for {}. Total imported: {}", genre, totalImported);
+            eventPublisher.publishEvent(CatalogChangedEvent.games());
             
         } catch (Exception e) {
             logger.error("Error during genre import", e);
@@ -145,6 +151,7 @@ public class GameImportService {
         long before = gameRepository.count();
         gameRepository.deleteAll();
         long after = gameRepository.count();
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
         return Math.toIntExact(before - after);
     }
 
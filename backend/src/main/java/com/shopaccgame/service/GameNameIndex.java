@@ -0,0 +1,135 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.repository.projection.GameNameView;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over normalized game names for autocomplete.
+ * Full names and every later word start ("elden ring" -> "elden ring" / "ring") are kept in
+ * two sorted arrays, so a lookup is a binary search plus a walk of at most limit matches.
+ */
+public final class GameNameIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<GameNameView> games;
+    private final PrefixArray namePrefixes;
+    private final PrefixArray wordPrefixes;
+
+    public GameNameIndex(List<GameNameView> games) {
+        this.games = List.copyOf(games);
+
+        List<Entry> names = new ArrayList<>();
+        List<Entry> words = new ArrayList<>();
+        for (int i = 0; i < this.games.size(); i++) {
+            String normalized = normalize(this.games.get(i).getName());
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            names.add(new Entry(normalized, i));
+            for (int pos = normalized.indexOf(' '); pos >= 0; pos = normalized.indexOf(' ', pos + 1)) {
+                words.add(new Entry(normalized.substring(pos + 1), i));
+            }
+        }
+        this.namePrefixes = new PrefixArray(names);
+        this.wordPrefixes = new PrefixArray(words);
+    }
+
+    /**
+     * Lower-case, strip diacritics (including Vietnamese đ) and collapse separators to single spaces
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+
+    /**
+     * Games whose name, or any word in it, starts with the query.
+     * Names that start with the query come before mid-name word matches.
+     */
+    public List<GameNameView> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<Integer> matches = new LinkedHashSet<>();
+        namePrefixes.collect(prefix, matches, limit);
+        wordPrefixes.collect(prefix, matches, limit);
+
+        List<GameNameView> result = new ArrayList<>(matches.size());
+        for (int gameIndex : matches) {
+            result.add(games.get(gameIndex));
+        }
+        return result;
+    }
+
+    public List<GameNameView> getGames() {
+        return games;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Keys sorted lexicographically with the owning game index alongside
+     */
+    private static final class PrefixArray {
+        private final String[] keys;
+        private final int[] gameIndexes;
+
+        private PrefixArray(List<Entry> entries) {
+            entries.sort(Comparator.comparing((Entry entry) -> entry.key));
+            this.keys = new String[entries.size()];
+            this.gameIndexes = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i).key;
+                gameIndexes[i] = entries.get(i).gameIndex;
+            }
+        }
+
+        // Binary search to the first key >= prefix, then walk forward while keys still match
+        private void collect(String prefix, Set<Integer> matches, int limit) {
+            for (int i = lowerBound(prefix); i < keys.length && matches.size() < limit && keys[i].startsWith(prefix); i++) {
+                matches.add(gameIndexes[i]);
+            }
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final int gameIndex;
+
+        private Entry(String key, int gameIndex) {
+            this.key = key;
+            this.gameIndex = gameIndex;
+        }
+    }
+}
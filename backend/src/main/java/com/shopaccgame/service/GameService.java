@@ -3,7 +3,10 @@ package com.shopaccgame.service;
 import com.shopaccgame.entity.Game;
 import com.shopaccgame.dto.GameDto;
 import com.shopaccgame.repository.GameRepository;
+import com.shopaccgame.repository.projection.GameNameView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,26 +24,44 @@ public class GameService {
     @Autowired
     private GameRepository gameRepository;
     
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
     /**
-     * Clear Hibernate session cache to ensure fresh data from database
+     * Read from the database, not the games cache: CatalogResponseCache stores the result under
+     * the current catalog version, so it must not be older than that version
      */
-    private void clearSessionCache() {
-        entityManager.clear();
-    }
-    
     public List<GameDto> getAllGames() {
-        clearSessionCache();
         List<Game> games = gameRepository.findAll();
         return games.stream()
                 .map(GameDto::new)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Id and name of every game, selected without loading the entities
+     */
+    public List<GameNameView> getGameNames() {
+        return catalogService.getSnapshot().getGameNames();
+    }
+    
+    /**
+     * Autocomplete: games whose name or any word of it starts with the query, served from the in-memory index
+     */
+    public List<GameNameView> suggestGames(String query, int limit) {
+        return catalogService.getSnapshot().getGameNameIndex().suggest(query, limit);
+    }
+    
     public Page<GameDto> getAllGames(Pageable pageable) {
-        clearSessionCache();
         Page<Game> games = gameRepository.findAll(pageable);
         List<GameDto> dtoList = games.getContent().stream()
                 .map(GameDto::new)
@@ -54,37 +75,40 @@ public class GameService {
     }
     
     public Game getGameById(Long id) {
-        clearSessionCache();
         return gameRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Game not found with id: " + id));
     }
     
+    @Cacheable(EntityCacheService.GAMES)
     public GameDto getGameDtoById(Long id) {
         Game game = getGameById(id);
         return new GameDto(game);
     }
     
     public List<GameDto> searchGames(String keyword) {
-        List<Game> games = gameRepository.findByNameContainingIgnoreCase(keyword);
+        List<Game> games = searchService.searchGames(keyword);
         return games.stream()
                 .map(GameDto::new)
                 .collect(Collectors.toList());
     }
     
     public Page<GameDto> searchGames(String keyword, Pageable pageable) {
-        Page<Game> games = gameRepository.findByNameContainingIgnoreCase(keyword, pageable);
+        Page<Game> games = searchService.searchGames(keyword, pageable);
         return games.map(GameDto::new);
     }
     
     public List<GameDto> searchGamesByName(String searchTerm) {
-        List<Game> games = gameRepository.findByNameContainingIgnoreCase(searchTerm);
+        List<Game> games = searchService.searchGames(searchTerm);
         return games.stream()
                 .map(GameDto::new)
                 .collect(Collectors.toList());
     }
     
     public Game createGame(Game game) {
-        return gameRepository.save(game);
+        Game savedGame = gameRepository.save(game);
+        // A new game is not referenced by any listing yet
+        eventPublisher.publishEvent(CatalogChangedEvent.games());
+        return savedGame;
     }
     
     public Game updateGame(Long id, Game game) {
@@ -93,11 +117,15 @@ public class GameService {
         existingGame.setDescription(game.getDescription());
         existingGame.setImageUrl(game.getImageUrl());
         
-        return gameRepository.save(existingGame);
+        Game savedGame = gameRepository.save(existingGame);
+        // Game chips are embedded in every listing that references the game
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
+        return savedGame;
     }
     
     public void deleteGame(Long id) {
         gameRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.all());
     }
     
     public long getGameCount() {
@@ -109,7 +137,6 @@ public class GameService {
      * @return Count of games that have at least one available steam account
      */
     public long getActiveGameCount() {
-        clearSessionCache();
         // For now, return all games as "active" since we don't have an active field
         // In the future, this could be based on games that have available steam accounts
         return gameRepository.count();
@@ -120,7 +147,6 @@ public class GameService {
      * @return Count of featured games (currently returns 0 since no featured field exists)
      */
     public long getFeaturedGameCount() {
-        clearSessionCache();
         // For now, return 0 since we don't have a featured field
         // In the future, this could be based on a featured flag or other criteria
         return 0L;
@@ -131,7 +157,6 @@ public class GameService {
      * @return List of all games
      */
     public List<Game> getAllGamesForDebug() {
-        clearSessionCache();
         return gameRepository.findAll();
     }
     
@@ -140,7 +165,6 @@ public class GameService {
      * @return List of all games with steam accounts loaded
      */
     public List<GameDto> getAllGamesWithSteamAccountsForDebug() {
-        clearSessionCache();
         List<Game> games = gameRepository.findAll();
         return games.stream()
                 .map(GameDto::new)
@@ -153,9 +177,8 @@ public class GameService {
      * @return Fresh game data from database
      */
     public Game refreshGameFromDatabase(Long id) {
-        clearSessionCache();
-        entityManager.flush();
-        return gameRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Game not found with id: " + id));
+        Game game = getGameById(id);
+        entityManager.refresh(game);
+        return game;
     }
 }
@@ -0,0 +1,29 @@
+package com.shopaccgame.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits id lists for queries that bind them as IN (...) parameters. PostgreSQL rejects statements
+ * with more than 65535 bind parameters, and very long IN lists plan poorly, so each query gets at
+ * most CHUNK_SIZE ids.
+ */
+final class IdChunks {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private IdChunks() {
+    }
+
+    /**
+     * Call action once per chunk of ids, in iteration order
+     */
+    static <T> void forEachChunk(Collection<T> ids, Consumer<List<T>> action) {
+        List<T> list = ids instanceof List<T> l ? l : new ArrayList<>(ids);
+        for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+            action.accept(list.subList(start, Math.min(start + CHUNK_SIZE, list.size())));
+        }
+    }
+}
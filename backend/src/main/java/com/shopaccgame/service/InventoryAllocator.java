@@ -0,0 +1,176 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.repository.SteamAccountRepository;
+import com.shopaccgame.repository.projection.AllocatableAccountView;
+import com.shopaccgame.repository.projection.ExpiredOrderView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Hands out steam accounts for checkout from a lock-free queue of candidate ids per AccountInfo,
+ * so concurrent buyers of a hot listing take different accounts instead of all trying the first one.
+ * The queues are only a hint: every id is still claimed with a row lock in the database, so a stale
+ * or duplicate id costs one rejected claim, never a double sale. Queues are seeded at startup,
+ * reloaded when a listing's stock changes and refilled from the database when they run dry.
+ */
+@Service
+public class InventoryAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryAllocator.class);
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    private final Map<Long, Queue<Long>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Take distinct accounts for a whole cart: each round takes the missing number of candidates
+     * for every listing and hands them all to claimAll at once, which must lock them in the current
+     * transaction and return the ids it got; rejected candidates are dropped from the queue. Rounds
+     * repeat for listings still short, with one refill from the database per listing. Claimed ids go
+     * back to their queues if the transaction rolls back.
+     * @param quantities units wanted per AccountInfo id
+     * @return claimed account ids per AccountInfo id; shorter than requested where stock ran out
+     */
+    public Map<Long, List<Long>> allocateAll(Map<Long, Integer> quantities, Function<List<Long>, Set<Long>> claimAll) {
+        Map<Long, List<Long>> allocated = new LinkedHashMap<>();
+        quantities.keySet().forEach(accountInfoId -> allocated.put(accountInfoId, new ArrayList<>()));
+        Set<Long> refilled = new HashSet<>();
+        while (true) {
+            List<Long> candidates = new ArrayList<>();
+            Map<Long, Long> listingOfCandidate = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Long accountInfoId = entry.getKey();
+                List<Long> taken = allocated.get(accountInfoId);
+                int missing = entry.getValue() - taken.size();
+                while (missing > 0) {
+                    Long accountId = queue(accountInfoId).poll();
+                    if (accountId == null) {
+                        if (!refilled.add(accountInfoId)) {
+                            break;
+                        }
+                        reload(accountInfoId);
+                        continue;
+                    }
+                    // A refill can re-add an id this checkout already holds or is about to claim
+                    if (!taken.contains(accountId) && listingOfCandidate.putIfAbsent(accountId, accountInfoId) == null) {
+                        candidates.add(accountId);
+                        missing--;
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Set<Long> claimed = claimAll.apply(candidates);
+            for (Long accountId : candidates) {
+                if (claimed.contains(accountId)) {
+                    allocated.get(listingOfCandidate.get(accountId)).add(accountId);
+                }
+            }
+        }
+        allocated.forEach(this::returnOnRollback);
+        return allocated;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try {
+            loadAll();
+        } catch (Exception e) {
+            // Queues fill lazily on first checkout instead
+            logger.error("Failed to load inventory queues at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the queue of a listing whose stock changed, once the change has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isGamesOnly()) {
+            return;
+        }
+        try {
+            if (event.isFullRebuild()) {
+                loadAll();
+            } else {
+                reload(event.getAccountInfoId());
+            }
+        } catch (Exception e) {
+            // The next checkout that drains the queue refills it
+            logger.error("Failed to reload inventory queue for accountInfo {}: {}",
+                event.getAccountInfoId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Accounts held by orders that just expired are sellable again; queue them for their listings
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersExpired(OrdersExpiredEvent event) {
+        for (ExpiredOrderView order : event.getOrders()) {
+            queue(order.getAccountInfoId()).add(order.getSteamAccountId());
+        }
+    }
+
+    private void loadAll() {
+        Map<Long, Queue<Long>> loaded = new HashMap<>();
+        for (AllocatableAccountView account : steamAccountRepository.findAllocatableAccounts()) {
+            loaded.computeIfAbsent(account.getAccountInfoId(), id -> new ConcurrentLinkedQueue<>()).add(account.getId());
+        }
+        queues.keySet().retainAll(loaded.keySet());
+        queues.putAll(loaded);
+        logger.info("Loaded inventory queues for {} listings", loaded.size());
+    }
+
+    private void reload(Long accountInfoId) {
+        List<Long> accountIds = steamAccountRepository.findAllocatableIdsByAccountInfoId(accountInfoId);
+        if (accountIds.isEmpty()) {
+            queues.remove(accountInfoId);
+        } else {
+            queues.put(accountInfoId, new ConcurrentLinkedQueue<>(accountIds));
+        }
+    }
+
+    private Queue<Long> queue(Long accountInfoId) {
+        return queues.computeIfAbsent(accountInfoId, id -> new ConcurrentLinkedQueue<>());
+    }
+
+    private void returnOnRollback(Long accountInfoId, List<Long> accountIds) {
+        if (accountIds.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    queue(accountInfoId).addAll(accountIds);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.shopaccgame.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a database cursor to a JSON array (or its Smile / CBOR equivalent) as rows arrive.
+ * Rows are mapped in chunks the size of the Hibernate batch fetch size, so lazy associations of a
+ * chunk load in one query, then written, flushed and detached. Heap use stays at one chunk
+ * however many rows the cursor returns. Must be called inside a transaction that keeps the cursor open.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    // Matches hibernate.default_batch_fetch_size
+    static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    private ResponseFormats responseFormats;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param format one of the ResponseFormats media types
+     * @return number of elements written
+     */
+    public <E> long write(OutputStream out, MediaType format, Stream<E> rows, Function<E, ?> mapper) throws IOException {
+        long count = 0;
+        try (rows; JsonGenerator generator = responseFormats.objectMapper(format).createGenerator(out)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            List<E> chunk = new ArrayList<>(CHUNK_SIZE);
+            // hasNext() reads the next row, so a chunk is written as soon as it fills, before the cursor moves on
+            for (Iterator<E> it = rows.iterator(); it.hasNext(); ) {
+                chunk.add(it.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    count += writeChunk(generator, chunk, mapper);
+                }
+            }
+            count += writeChunk(generator, chunk, mapper);
+            generator.writeEndArray();
+        }
+        return count;
+    }
+
+    private <E> int writeChunk(JsonGenerator generator, List<E> chunk, Function<E, ?> mapper) throws IOException {
+        for (E row : chunk) {
+            generator.writeObject(mapper.apply(row));
+        }
+        int written = chunk.size();
+        chunk.clear();
+        generator.flush();
+        // Entities already written are not needed again; keep the persistence context small
+        entityManager.clear();
+        return written;
+    }
+}
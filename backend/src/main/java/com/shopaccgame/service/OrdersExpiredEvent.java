@@ -0,0 +1,22 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.repository.projection.ExpiredOrderView;
+
+import java.util.List;
+
+/**
+ * Published after a chunk of pending orders has been expired in bulk; the steam accounts they
+ * were holding can be offered to other buyers again
+ */
+public class OrdersExpiredEvent {
+
+    private final List<ExpiredOrderView> orders;
+
+    public OrdersExpiredEvent(List<ExpiredOrderView> orders) {
+        this.orders = List.copyOf(orders);
+    }
+
+    public List<ExpiredOrderView> getOrders() {
+        return orders;
+    }
+}
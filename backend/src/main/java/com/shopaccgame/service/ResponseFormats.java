@@ -0,0 +1,77 @@
+package com.shopaccgame.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Format choice for endpoints that write their own bytes (cached or streamed bodies), made the
+ * same way the message converters choose for every other response: highest Accept quality wins,
+ * JSON on ties and when nothing matches.
+ */
+@Component
+public class ResponseFormats {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    private static final List<MediaType> SUPPORTED = List.of(MediaType.APPLICATION_JSON, APPLICATION_SMILE,
+        MediaType.APPLICATION_CBOR);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    /**
+     * @return application/json, application/x-jackson-smile or application/cbor
+     */
+    public static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType best = MediaType.APPLICATION_JSON;
+        double bestQuality = 0;
+        for (MediaType format : SUPPORTED) {
+            // The most specific matching range sets the quality, so "*/*, application/cbor;q=0.5" prefers JSON
+            double quality = 0;
+            int specificity = -1;
+            for (MediaType type : acceptable) {
+                int matchSpecificity = type.isWildcardType() ? 0 : type.isWildcardSubtype() ? 1 : 2;
+                if (type.includes(format) && matchSpecificity > specificity) {
+                    quality = type.getQualityValue();
+                    specificity = matchSpecificity;
+                }
+            }
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    public ObjectMapper objectMapper(MediaType format) {
+        if (APPLICATION_SMILE.equals(format)) {
+            return smileConverter.getObjectMapper();
+        }
+        if (MediaType.APPLICATION_CBOR.equals(format)) {
+            return cborConverter.getObjectMapper();
+        }
+        return objectMapper;
+    }
+}
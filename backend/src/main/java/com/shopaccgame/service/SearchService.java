@@ -0,0 +1,117 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.entity.Game;
+import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.GameRepository;
+import com.shopaccgame.repository.SteamAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Relevance-ranked search over games and account listings.
+ * Matches tsvector prefixes (GIN) plus pg_trgm similarity and substrings on the unaccented,
+ * lower-cased name, so "dau truong" finds "Đấu Trường" and small typos still hit.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SearchService {
+
+    // Upper bound for unpaged game result lists
+    public static final int MAX_RESULTS = 200;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    public Page<Game> searchGames(String keyword, Pageable pageable) {
+        String tsQuery = toPrefixTsQuery(keyword);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        return gameRepository.searchByRelevance(keyword.trim(), tsQuery, withoutSort(pageable));
+    }
+
+    /**
+     * Best MAX_RESULTS matching games, most relevant first
+     */
+    public List<Game> searchGames(String keyword) {
+        return searchGames(keyword, PageRequest.of(0, MAX_RESULTS)).getContent();
+    }
+
+    /**
+     * Ids of available steam accounts whose listing links any game matching the name, newest first
+     */
+    public List<Long> searchAvailableSteamAccountIdsByGame(String gameName) {
+        String tsQuery = toPrefixTsQuery(gameName);
+        if (tsQuery == null) {
+            return List.of();
+        }
+        return steamAccountRepository.findAvailableIdsByGameMatch(gameName.trim(), tsQuery);
+    }
+
+    /**
+     * Page of available steam account ids whose listing links any game matching the name
+     * @param pageable sorted on native columns (id, ai.price, ...)
+     */
+    public Page<Long> searchAvailableSteamAccountIdsByGame(String gameName, Pageable pageable) {
+        String tsQuery = toPrefixTsQuery(gameName);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        return steamAccountRepository.findAvailableIdsByGameMatch(gameName.trim(), tsQuery, pageable);
+    }
+
+    public Page<AccountInfo> searchAccountInfos(String searchTerm, Pageable pageable) {
+        String tsQuery = toPrefixTsQuery(searchTerm);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        return accountInfoRepository.searchByRelevance(searchTerm.trim(), tsQuery, withoutSort(pageable));
+    }
+
+    /**
+     * Page of IN_STOCK steam account ids matching listing name, game names or account code, newest first
+     */
+    public Page<Long> searchInStockSteamAccountIds(String query, Pageable pageable) {
+        String tsQuery = toPrefixTsQuery(query);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        return steamAccountRepository.searchInStockIds(query.trim(), tsQuery, withoutSort(pageable));
+    }
+
+    /**
+     * Turn free text into an AND of prefix terms ("elden ri" -> "elden:* & ri:*").
+     * Only letters and digits survive, so user input can never produce tsquery syntax errors.
+     * @return null when the text has nothing searchable
+     */
+    static String toPrefixTsQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        String tsQuery = Arrays.stream(text.split("[^\\p{L}\\p{M}\\p{N}]+"))
+            .filter(term -> !term.isEmpty())
+            .map(term -> term + ":*")
+            .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
+    }
+
+    // Results are ordered by relevance in SQL; a caller-supplied sort would be appended after it
+    private static Pageable withoutSort(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
+}
@@ -1,28 +1,44 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.config.RetryOnConflict;
+import com.shopaccgame.dto.CursorPageDto;
 import com.shopaccgame.dto.OrderRequestDto;
 import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.SteamAccount;
 import com.shopaccgame.entity.enums.AccountClassification;
 import com.shopaccgame.entity.enums.AccountStockStatus;
 import com.shopaccgame.entity.enums.OrderStatus;
 import com.shopaccgame.entity.SteamAccountOrder;
 import com.shopaccgame.entity.User;
+import com.shopaccgame.repository.SteamAccountOrderBatchWriter;
 import com.shopaccgame.repository.SteamAccountOrderRepository;
 import com.shopaccgame.repository.SteamAccountRepository;
 import com.shopaccgame.repository.UserRepository;
+import com.shopaccgame.repository.projection.ExpiredOrderView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +47,9 @@ public class SteamAccountOrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(SteamAccountOrderService.class);
     
+    // Orders expired per UPDATE; bounds lock time and statement size when a backlog builds up
+    private static final int EXPIRY_CHUNK_SIZE = 500;
+    
     @Autowired
     private SteamAccountOrderRepository orderRepository;
     
@@ -47,32 +66,29 @@ public class SteamAccountOrderService {
     @Autowired
     private EncryptionService encryptionService;
     
+    @Autowired
+    private AccountStockService accountStockService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+    
+    @Autowired
+    private SteamAccountOrderBatchWriter orderBatchWriter;
+    
     /**
      * Create a new order for a specific steam account
      */
+    @RetryOnConflict
     public OrderResponseDto createOrder(OrderRequestDto requestDto, String username) {
         // Find the user
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
-        // Find the steam account
-        SteamAccount steamAccount = steamAccountRepository.findById(requestDto.getSteamAccountId())
-            .orElseThrow(() -> new RuntimeException("Steam account not found"));
-        
-        // Check if steam account is available
-        if (steamAccount.getStatus() != AccountStockStatus.IN_STOCK && steamAccount.getStatus() != AccountStockStatus.PRE_ORDER) {
-            throw new RuntimeException("Steam account is not available for purchase");
-        }
-        
-        // Check if there are any active orders for this specific steam account
-        List<OrderStatus> activeStatuses = List.of(
-            OrderStatus.PENDING, 
-            OrderStatus.PAID
-        );
-        
-        if (orderRepository.existsBySteamAccountIdAndStatusIn(steamAccount.getId(), activeStatuses)) {
-            throw new RuntimeException("Steam account is already being processed in another order");
-        }
+        // Lock the account and check it is still purchasable
+        SteamAccount steamAccount = reserveSteamAccount(requestDto.getSteamAccountId());
         
         // Create the order
         SteamAccountOrder order = new SteamAccountOrder(steamAccount, user, steamAccount.getAccountInfo().getPrice());
@@ -83,6 +99,7 @@ public class SteamAccountOrderService {
         
         // Save the order
         SteamAccountOrder savedOrder = orderRepository.save(order);
+        expiryScheduler.scheduleOrderExpiry(savedOrder.getId(), savedOrder.getExpiresAt());
         
         logger.info("Created order {} for steam account {} by user {}", 
             savedOrder.getOrderId(), steamAccount.getUsername(), username);
@@ -119,6 +136,33 @@ public class SteamAccountOrderService {
         return orders.map(this::toOrderResponseDto);
     }
     
+    /**
+     * Get user's orders as a keyset page ordered by creation time, newest first
+     * @param after cursor returned by the previous page, or null for the first page
+     */
+    public CursorPageDto<OrderResponseDto> getUserOrdersAfter(String username, String after, int size) {
+        User user = userRepository.findByUsername(username)
+            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        
+        int pageSize = CursorPageDto.normalizeSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<SteamAccountOrder> rows;
+        if (after == null) {
+            rows = orderRepository.findUserOrdersFirstPage(user, limit);
+        } else {
+            String[] cursor = CursorPageDto.decodeCursor(after);
+            LocalDateTime createdAt;
+            try {
+                createdAt = LocalDateTime.parse(cursor[0]);
+            } catch (java.time.format.DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + after, e);
+            }
+            rows = orderRepository.findUserOrdersBefore(user, createdAt, Long.valueOf(cursor[1]), limit);
+        }
+        return CursorPageDto.of(rows, pageSize, this::toOrderResponseDto,
+            order -> CursorPageDto.encodeCursor(order.getCreatedAt(), order.getId()));
+    }
+    
     /**
      * Get all user's orders (for profile page)
      */
@@ -135,6 +179,7 @@ public class SteamAccountOrderService {
      * Case account_info#classify = STOCK, markOrderAsDelivered
      * Setting steamAccount#status
      */
+    @RetryOnConflict
     public OrderResponseDto markOrderAsPaid(String orderId) {
         SteamAccountOrder order = orderRepository.findByOrderId(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -157,6 +202,9 @@ public class SteamAccountOrderService {
         }
 
         SteamAccountOrder savedOrder = orderRepository.save(order);
+        if (order.getSteamAccount() != null) {
+            accountStockService.refreshAvailableStock(order.getSteamAccount().getAccountInfo());
+        }
         
         return toOrderResponseDto(savedOrder);
     }
@@ -164,6 +212,7 @@ public class SteamAccountOrderService {
     /**
      * Mark order as delivered
      */
+    @RetryOnConflict
     public OrderResponseDto markOrderAsDelivered(String orderId, String username) {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
@@ -191,6 +240,7 @@ public class SteamAccountOrderService {
     /**
      * Cancel order
      */
+    @RetryOnConflict
     public OrderResponseDto cancelOrder(String orderId, String username) {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
@@ -218,38 +268,23 @@ public class SteamAccountOrderService {
     /**
      * Create and pay order using user balance
      */
+    @RetryOnConflict
     public OrderResponseDto createAndPayWithBalance(OrderRequestDto requestDto, String username) {
         // Find the user
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
-        // Find the steam account
-        SteamAccount steamAccount = steamAccountRepository.findById(requestDto.getSteamAccountId())
-            .orElseThrow(() -> new RuntimeException("Steam account not found"));
-        
-        // Check if steam account is available
-        if (steamAccount.getStatus() != AccountStockStatus.IN_STOCK && steamAccount.getStatus() != AccountStockStatus.PRE_ORDER) {
-            throw new RuntimeException("Steam account is not available for purchase");
-        }
-        
-        // Check if there are any active orders for this steam account
-        List<OrderStatus> activeStatuses = List.of(
-            OrderStatus.PENDING, 
-            OrderStatus.PAID
-        );
+        // Lock the account and check it is still purchasable
+        SteamAccount steamAccount = reserveSteamAccount(requestDto.getSteamAccountId());
         
-        if (orderRepository.existsBySteamAccountIdAndStatusIn(steamAccount.getId(), activeStatuses)) {
-            throw new RuntimeException("Steam account is already being processed in another order");
-        }
+        // Create the order
+        SteamAccountOrder order = new SteamAccountOrder(steamAccount, user, steamAccount.getAccountInfo().getPrice());
         
         // Check if user has sufficient balance
-        if (!userBalanceService.deductFromBalance(username, steamAccount.getAccountInfo().getPrice())) {
+        if (!userBalanceService.deductFromBalance(username, order.getAmount(), order.getOrderId())) {
             throw new RuntimeException("Insufficient balance");
         }
         
-        // Create the order
-        SteamAccountOrder order = new SteamAccountOrder(steamAccount, user, steamAccount.getAccountInfo().getPrice());
-        
         // Mark as paid immediately since we deducted from balance
         // Handle business for AccountClassification.STOCK and AccountClassification.ORDER
         if (order.getSteamAccount() != null) {
@@ -270,6 +305,7 @@ public class SteamAccountOrderService {
         
         // Save the order
         SteamAccountOrder savedOrder = orderRepository.save(order);
+        accountStockService.refreshAvailableStock(steamAccount.getAccountInfo());
         
         logger.info("Created and paid order {} for steam account {} by user {} using balance", 
             savedOrder.getOrderId(), steamAccount.getUsername(), username);
@@ -277,6 +313,111 @@ public class SteamAccountOrderService {
         return toOrderResponseDto(savedOrder);
     }
     
+    /**
+     * Reserve accounts for batch checkout: lock the sellable accounts among the ids in one statement
+     * (SKIP LOCKED, so accounts another checkout holds are skipped, not waited for), then drop the ones
+     * held by an active order with a second. As in reserveSteamAccount, the order check runs after the
+     * lock so it sees every order committed before it. Never throws for unavailable accounts, so the
+     * caller can try others without marking its transaction rollback-only.
+     * @return ids now reserved by the current transaction
+     */
+    public Set<Long> tryReserveSteamAccounts(List<Long> steamAccountIds) {
+        Set<Long> reserved = new HashSet<>(steamAccountRepository.lockSellableIdsSkipLocked(steamAccountIds));
+        if (!reserved.isEmpty()) {
+            reserved.removeAll(orderRepository.findSteamAccountIdsWithStatusIn(reserved,
+                List.of(OrderStatus.PENDING, OrderStatus.PAID)));
+        }
+        return reserved;
+    }
+    
+    /**
+     * Create one order per reserved steam account for a cart checkout in a fixed number of statements:
+     * the orders are inserted as one JDBC batch, a balance payment is debited once for the total and
+     * sold accounts change status with one UPDATE per new status.
+     * @param listingByAccountId reserved steam account ids, in order, each with the AccountInfo it is sold under
+     * @param payWithBalance pay from the balance, as createAndPayWithBalance does, instead of leaving the orders PENDING
+     */
+    public List<OrderResponseDto> createOrders(User user, Map<Long, AccountInfo> listingByAccountId, boolean payWithBalance) {
+        List<SteamAccountOrder> orders = new ArrayList<>(listingByAccountId.size());
+        Map<AccountStockStatus, List<Long>> accountsByNewStatus = new EnumMap<>(AccountStockStatus.class);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, AccountInfo> entry : listingByAccountId.entrySet()) {
+            AccountInfo accountInfo = entry.getValue();
+            SteamAccountOrder order = new SteamAccountOrder(steamAccountRepository.getReferenceById(entry.getKey()),
+                user, accountInfo.getPrice());
+            order.setQrCodeUrl(generateQrCodeUrl(order.getOrderId(), order.getAmount()));
+            if (payWithBalance) {
+                // Handle business for AccountClassification.STOCK and AccountClassification.ORDER
+                if (AccountClassification.STOCK.equals(accountInfo.getClassify())) {
+                    order.markAsDelivered();
+                    accountsByNewStatus.computeIfAbsent(AccountStockStatus.SOLD, status -> new ArrayList<>()).add(entry.getKey());
+                } else {
+                    order.markAsPaid();
+                    accountsByNewStatus.computeIfAbsent(AccountStockStatus.ORDERING, status -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            total = total.add(order.getAmount());
+            orders.add(order);
+        }
+        
+        if (payWithBalance && !userBalanceService.deductForOrders(user.getUsername(), amountByOrderId(orders))) {
+            throw new RuntimeException("Insufficient balance. Required: " + total);
+        }
+        
+        orderBatchWriter.insertAll(orders);
+        accountsByNewStatus.forEach((status, accountIds) -> steamAccountRepository.updateStatusByIds(accountIds, status.name()));
+        if (payWithBalance) {
+            listingByAccountId.values().stream().map(AccountInfo::getId).distinct()
+                .forEach(accountStockService::refreshAvailableStock);
+        }
+        
+        // Read the inserted orders back as entities, in one query, for their ids and the response
+        List<String> orderIds = orders.stream().map(SteamAccountOrder::getOrderId).toList();
+        Map<String, SteamAccountOrder> savedOrders = orderRepository.findByOrderIdInWithAccount(orderIds).stream()
+            .collect(Collectors.toMap(SteamAccountOrder::getOrderId, Function.identity()));
+        List<OrderResponseDto> result = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            SteamAccountOrder savedOrder = savedOrders.get(orderId);
+            if (savedOrder.getStatus() == OrderStatus.PENDING) {
+                expiryScheduler.scheduleOrderExpiry(savedOrder.getId(), savedOrder.getExpiresAt());
+            }
+            result.add(toOrderResponseDto(savedOrder));
+        }
+        
+        logger.info("Created {} order(s) {} for user {}{}", orders.size(), orderIds, user.getUsername(),
+            payWithBalance ? " using balance" : "");
+        return result;
+    }
+    
+    /**
+     * Lock the steam account row for the rest of this transaction and verify it can be sold.
+     * The lock is taken with SKIP LOCKED, so when two buyers race for the same account exactly one
+     * gets the row and the other fails immediately; checkouts for other accounts never wait.
+     * The status and active-order checks run after the lock, so they see every order committed before it.
+     */
+    private SteamAccount reserveSteamAccount(Long steamAccountId) {
+        SteamAccount steamAccount = steamAccountRepository.lockByIdSkipLocked(steamAccountId)
+            .orElseThrow(() -> steamAccountRepository.existsById(steamAccountId)
+                ? new RuntimeException("Steam account is already being processed in another order")
+                : new RuntimeException("Steam account not found"));
+        
+        // Check if steam account is available
+        if (steamAccount.getStatus() != AccountStockStatus.IN_STOCK && steamAccount.getStatus() != AccountStockStatus.PRE_ORDER) {
+            throw new RuntimeException("Steam account is not available for purchase");
+        }
+        
+        // Check if there are any active orders for this steam account
+        List<OrderStatus> activeStatuses = List.of(
+            OrderStatus.PENDING, 
+            OrderStatus.PAID
+        );
+        
+        if (orderRepository.existsBySteamAccountIdAndStatusIn(steamAccount.getId(), activeStatuses)) {
+            throw new RuntimeException("Steam account is already being processed in another order");
+        }
+        return steamAccount;
+    }
+    
     /**
      * Generate QR code URL for payment
      */
@@ -286,19 +427,37 @@ public class SteamAccountOrderService {
     }
     
     /**
-     * Scheduled task to expire old pending orders
+     * Reconciliation sweep for pending orders the ExpiryScheduler missed, e.g. across a restart
+     * or when its UPDATE failed; orders normally expire on time without it
      */
-    @Scheduled(fixedRate = 60000) // Run every minute
+    @Scheduled(fixedRate = 600000) // Run every 10 minutes
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // each chunk commits on its own
     public void expireOldOrders() {
-        List<SteamAccountOrder> expiredOrders = orderRepository.findExpiredOrders(LocalDateTime.now());
-        
-        for (SteamAccountOrder order : expiredOrders) {
-            order.markAsExpired();
-            orderRepository.save(order);
-            logger.info("Order {} expired automatically", order.getOrderId());
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        List<ExpiredOrderView> expired;
+        do {
+            expired = orderRepository.expireOverdueOrders(now, EXPIRY_CHUNK_SIZE);
+            if (!expired.isEmpty()) {
+                total += expired.size();
+                eventPublisher.publishEvent(new OrdersExpiredEvent(expired));
+                logger.debug("Expired orders {}", expired.stream().map(ExpiredOrderView::getOrderId).toList());
+            }
+        } while (expired.size() == EXPIRY_CHUNK_SIZE);
+        if (total > 0) {
+            logger.info("Expired {} pending order(s)", total);
         }
     }
     
+    /**
+     * Amount of each order by order id, so a cart paid in one debit still gets a ledger entry per order
+     */
+    private static Map<String, BigDecimal> amountByOrderId(List<SteamAccountOrder> orders) {
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        orders.forEach(order -> amounts.put(order.getOrderId(), order.getAmount()));
+        return amounts;
+    }
+    
     private OrderResponseDto toOrderResponseDto(SteamAccountOrder order) {
         OrderResponseDto dto = new OrderResponseDto(order);
         if (dto.getAccountPassword() != null) {
@@ -1,22 +1,35 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.dto.CursorPageDto;
+import com.shopaccgame.dto.GameDto;
 import com.shopaccgame.dto.SteamAccountDto;
 import com.shopaccgame.dto.SteamAccountRequestDto;
 import com.shopaccgame.dto.SteamAccountAdminDto;
 import com.shopaccgame.entity.SteamAccount;
 import com.shopaccgame.entity.AccountInfo;
 import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
 import com.shopaccgame.repository.SteamAccountRepository;
 import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.projection.SteamAccountCardView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -35,6 +48,55 @@ public class SteamAccountServiceNew {
     @Autowired
     private EncryptionService encryptionService;
     
+    @Autowired
+    private AccountStockService accountStockService;
+    
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+    
+    /**
+     * Public sort keys accepted by the storefront listing, mapped to entity paths.
+     * Anything outside this whitelist falls back to the default id ordering.
+     */
+    private static final Map<String, String> LISTING_SORT_FIELDS = Map.of(
+        "id", "id",
+        "updatedAt", "updatedAt",
+        "name", "accountInfo.name",
+        "price", "accountInfo.price",
+        "originalPrice", "accountInfo.originalPrice",
+        "discountPercentage", "accountInfo.discountPercentage"
+    );
+    
+    // Native columns behind the LISTING_SORT_FIELDS paths; unqualified names are steam_accounts columns
+    private static final Map<String, String> LISTING_SORT_COLUMNS = Map.of(
+        "id", "id",
+        "updatedAt", "updated_at",
+        "accountInfo.name", "ai.name",
+        "accountInfo.price", "ai.price",
+        "accountInfo.originalPrice", "ai.original_price",
+        "accountInfo.discountPercentage", "ai.discount_percentage"
+    );
+    
+    /**
+     * Build a pageable for the public listing endpoints from untrusted sort parameters
+     */
+    public Pageable createListingPageable(int page, int size, String sortBy, String sortDir) {
+        String property = LISTING_SORT_FIELDS.getOrDefault(sortBy, "id");
+        Sort sort = "asc".equalsIgnoreCase(sortDir) ?
+            Sort.by(property).ascending() : Sort.by(property).descending();
+        if (!"id".equals(property)) {
+            // Tie-break on id so pages stay stable when sort values repeat
+            sort = sort.and(Sort.by("id").descending());
+        }
+        return PageRequest.of(Math.max(page, 0), Math.max(size, 1), sort);
+    }
+    
     
     public List<SteamAccountDto> getAllSteamAccounts() {
         List<SteamAccount> accounts = steamAccountRepository.findAll();
@@ -48,17 +110,12 @@ public class SteamAccountServiceNew {
         return accounts.map(SteamAccountDto::new);
     }
     
-    public List<SteamAccountDto> getSteamAccountsByType(String accountType, Pageable pageable) {
-        com.shopaccgame.entity.enums.AccountType accountTypeEnum = com.shopaccgame.entity.enums.AccountType.valueOf(accountType);
-        List<SteamAccount> accounts = steamAccountRepository.findAvailableAccountsByType(accountTypeEnum);
-        return accounts.stream()
-            .map(SteamAccountDto::new)
-            .collect(Collectors.toList());
-    }
-    
-    public Page<SteamAccountDto> searchSteamAccounts(String searchTerm, Pageable pageable) {
-        Page<SteamAccount> accounts = steamAccountRepository.findBySearchTerm(searchTerm, pageable);
-        return accounts.map(SteamAccountDto::new);
+    /**
+     * Storefront search over IN_STOCK accounts; status filter, paging and count all run in the database
+     */
+    public Page<SteamAccountDto> searchAvailableSteamAccounts(String query, Pageable pageable) {
+        Page<Long> ids = searchService.searchInStockSteamAccountIds(query, pageable);
+        return new PageImpl<>(toOrderedCardDtos(ids.getContent()), ids.getPageable(), ids.getTotalElements());
     }
     
     public Optional<SteamAccountDto> getSteamAccountById(Long id) {
@@ -67,11 +124,14 @@ public class SteamAccountServiceNew {
     }
     
     // Admin methods that return sensitive information
-    public List<SteamAccountAdminDto> getAllSteamAccountsForAdmin() {
-        List<SteamAccount> accounts = steamAccountRepository.findAll();
-        return accounts.stream()
-            .map(this::createAdminDtoWithDecryptedPassword)
-            .collect(Collectors.toList());
+    /**
+     * Write every steam account, with decrypted credentials, as an array in the given format straight from a database cursor
+     */
+    @Transactional(readOnly = true)
+    public void writeAllSteamAccountsForAdmin(OutputStream out, MediaType format) throws IOException {
+        long count = jsonArrayStreamer.write(out, format, steamAccountRepository.streamAllWithAccountInfo(),
+            this::createAdminDtoWithDecryptedPassword);
+        logger.debug("Streamed {} steam accounts for admin", count);
     }
     
     public Page<SteamAccountAdminDto> getSteamAccountsForAdmin(Pageable pageable) {
@@ -159,6 +219,7 @@ public class SteamAccountServiceNew {
         steamAccount.setStatus(requestDto.getStatus() != null ? requestDto.getStatus() : AccountStockStatus.IN_STOCK);
         
         SteamAccount savedAccount = steamAccountRepository.save(steamAccount);
+        accountStockService.refreshAvailableStock(accountInfo);
         logger.info("Steam account created successfully with ID: {}", savedAccount.getId());
         
         return new SteamAccountDto(savedAccount);
@@ -169,6 +230,7 @@ public class SteamAccountServiceNew {
         
         SteamAccount steamAccount = steamAccountRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("SteamAccount not found with id: " + id));
+        Long previousAccountInfoId = steamAccount.getAccountInfo() != null ? steamAccount.getAccountInfo().getId() : null;
         
         // If accountInfoId is provided, update the association; otherwise keep existing
         if (requestDto.getAccountInfoId() != null) {
@@ -186,6 +248,10 @@ public class SteamAccountServiceNew {
         steamAccount.setStatus(requestDto.getStatus() != null ? requestDto.getStatus() : AccountStockStatus.IN_STOCK);
         
         SteamAccount savedAccount = steamAccountRepository.save(steamAccount);
+        accountStockService.refreshAvailableStock(savedAccount.getAccountInfo());
+        if (previousAccountInfoId != null && !previousAccountInfoId.equals(savedAccount.getAccountInfo().getId())) {
+            accountStockService.refreshAvailableStock(previousAccountInfoId);
+        }
         logger.info("Steam account updated successfully with ID: {}", savedAccount.getId());
         
         return new SteamAccountDto(savedAccount);
@@ -194,27 +260,43 @@ public class SteamAccountServiceNew {
     public void deleteSteamAccount(Long id) {
         logger.info("Deleting Steam account with ID: {}", id);
         
-        if (!steamAccountRepository.existsById(id)) {
-            throw new RuntimeException("SteamAccount not found with id: " + id);
-        }
+        SteamAccount steamAccount = steamAccountRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("SteamAccount not found with id: " + id));
+        Long accountInfoId = steamAccount.getAccountInfo() != null ? steamAccount.getAccountInfo().getId() : null;
         
-        steamAccountRepository.deleteById(id);
+        steamAccountRepository.delete(steamAccount);
+        accountStockService.refreshAvailableStock(accountInfoId);
         logger.info("Steam account deleted successfully with ID: {}", id);
     }
     
     public List<SteamAccountDto> getAvailableSteamAccounts() {
-        List<SteamAccount> accounts = steamAccountRepository.findAvailableAccounts();
-        return accounts.stream()
-            .map(SteamAccountDto::new)
-            .collect(Collectors.toList());
+        return catalogService.getSnapshot().getAvailableCards();
+    }
+    
+    public Page<SteamAccountDto> getAvailableSteamAccounts(Pageable pageable) {
+        Page<SteamAccountDto> page = catalogService.getSnapshot().pageCards(null, pageable);
+        return page != null ? page : toCardDtos(steamAccountRepository.findAvailableCards(pageable));
+    }
+    
+    /**
+     * Keyset page of available accounts ordered by id descending
+     * @param after cursor returned by the previous page, or null for the first page
+     */
+    public CursorPageDto<SteamAccountDto> getAvailableSteamAccountsAfter(String after, int size) {
+        int pageSize = CursorPageDto.normalizeSize(size);
+        Long beforeId = after != null ? Long.valueOf(CursorPageDto.decodeCursor(after)[1]) : Long.MAX_VALUE;
+        List<SteamAccount> rows = steamAccountRepository.findAvailableAccountsBefore(beforeId, PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, SteamAccountDto::new,
+            account -> CursorPageDto.encodeCursor(account.getId(), account.getId()));
+    }
+    
+    public Page<SteamAccountDto> getAvailableSteamAccountsByType(AccountType accountType, Pageable pageable) {
+        Page<SteamAccountDto> page = catalogService.getSnapshot().pageCards(accountType, pageable);
+        return page != null ? page : toCardDtos(steamAccountRepository.findAvailableCardsByType(accountType, pageable));
     }
     
     public List<SteamAccountDto> getAvailableSteamAccountsByType(String accountType) {
-        com.shopaccgame.entity.enums.AccountType accountTypeEnum = com.shopaccgame.entity.enums.AccountType.valueOf(accountType);
-        List<SteamAccount> accounts = steamAccountRepository.findAvailableAccountsByType(accountTypeEnum);
-        return accounts.stream()
-            .map(SteamAccountDto::new)
-            .collect(Collectors.toList());
+        return catalogService.getSnapshot().getAvailableCards(AccountType.valueOf(accountType));
     }
     
     public List<SteamAccountDto> getSteamAccountsByAccountInfoId(Long accountInfoId) {
@@ -230,16 +312,65 @@ public class SteamAccountServiceNew {
     }
     
     public List<SteamAccountDto> getAvailableAccountsByGameName(String gameName) {
-        List<SteamAccount> accounts = steamAccountRepository.findAvailableAccountsByGameName(gameName);
-        return accounts.stream()
-            .map(SteamAccountDto::new)
+        List<Long> ids = searchService.searchAvailableSteamAccountIdsByGame(gameName);
+        List<SteamAccountDto> accounts = new ArrayList<>(ids.size());
+        IdChunks.forEachChunk(ids, chunk -> {
+            Map<Long, SteamAccount> byId = steamAccountRepository.findWithGamesByIdIn(chunk).stream()
+                .collect(Collectors.toMap(SteamAccount::getId, account -> account));
+            chunk.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(SteamAccountDto::new)
+                .forEach(accounts::add);
+        });
+        return accounts;
+    }
+    
+    public Page<SteamAccountDto> getAvailableAccountsByGameName(String gameName, Pageable pageable) {
+        Page<Long> ids = searchService.searchAvailableSteamAccountIdsByGame(gameName, toNativeSort(pageable));
+        return new PageImpl<>(toOrderedCardDtos(ids.getContent()), pageable, ids.getTotalElements());
+    }
+    
+    // The game match is native SQL, so listing sort paths become column names
+    private static Pageable toNativeSort(Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().stream()
+            .map(order -> order.withProperty(LISTING_SORT_COLUMNS.getOrDefault(order.getProperty(), "id")))
             .collect(Collectors.toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
     }
     
-    public List<SteamAccountDto> getAvailableAccountsByGameId(Long gameId) {
-        List<SteamAccount> accounts = steamAccountRepository.findAvailableAccountsByGameId(gameId);
-        return accounts.stream()
-            .map(SteamAccountDto::new)
+    /**
+     * Cards for the given steam account ids, in the order given
+     */
+    private List<SteamAccountDto> toOrderedCardDtos(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SteamAccountCardView> cardsById = steamAccountRepository.findCardsByIds(ids).stream()
+            .collect(Collectors.toMap(SteamAccountCardView::getId, card -> card));
+        return toCardDtos(ids.stream()
+            .map(cardsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+    }
+    
+    private Page<SteamAccountDto> toCardDtos(Page<SteamAccountCardView> cards) {
+        return new PageImpl<>(toCardDtos(cards.getContent()), cards.getPageable(), cards.getTotalElements());
+    }
+    
+    /**
+     * Assemble storefront cards from column projections plus one batched game-chip query
+     */
+    private List<SteamAccountDto> toCardDtos(List<SteamAccountCardView> cards) {
+        Map<Long, List<GameDto>> gamesByAccountInfo = catalogService.loadGameChips(cards.stream()
+            .map(SteamAccountCardView::getAccountInfoId)
+            .collect(Collectors.toSet()));
+        return cards.stream()
+            .map(card -> new SteamAccountDto(card, gamesByAccountInfo.getOrDefault(card.getAccountInfoId(), List.of())))
             .collect(Collectors.toList());
     }
+    
+    public List<SteamAccountDto> getAvailableAccountsByGameId(Long gameId) {
+        return catalogService.getSnapshot().getAvailableCardsByGame(gameId);
+    }
 }
@@ -30,6 +30,9 @@ public class SteamCheckerService {
     @Autowired
     private EncryptionService encryptionService;
 
+    @Autowired
+    private AccountStockService accountStockService;
+
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -84,37 +87,36 @@ public class SteamCheckerService {
                 if (!valid && (error.contains("InvalidPassword") || error.contains("AccountLogonDenied") || 
                               error.contains("InvalidLogin") || error.contains("Password") || 
                               error.contains("LoginFailure"))) {
-                    account.setStatus(AccountStockStatus.MAINTENANCE);
-                    account.setVerifyDate(LocalDateTime.now());
-                    steamAccountRepository.save(account);
+                    moveToMaintenance(account);
                     logger.info("[Checker] Result INVALID_PASSWORD for accountId={}, account moved to MAINTENANCE, error: {}", accountId, error);
                     return ValidationResult.INVALID_PASSWORD;
                 }
 
                 // Any other result: treat as error and move to maintenance
-                account.setStatus(AccountStockStatus.MAINTENANCE);
-                account.setVerifyDate(LocalDateTime.now());
-                steamAccountRepository.save(account);
+                moveToMaintenance(account);
                 logger.warn("[Checker] Result ERROR for accountId={}, error: {}, account moved to MAINTENANCE", accountId, error);
                 return ValidationResult.ERROR;
             }
 
             logger.error("[Checker] Non-2xx response or empty body from steam-checker for accountId={}", accountId);
             // Move account to maintenance on service errors
-            account.setStatus(AccountStockStatus.MAINTENANCE);
-            account.setVerifyDate(LocalDateTime.now());
-            steamAccountRepository.save(account);
+            moveToMaintenance(account);
             return ValidationResult.ERROR;
         } catch (Exception ex) {
             logger.error("[Checker] Error validating accountId={} message={}", accountId, ex.getMessage(), ex);
             // Move account to maintenance on exceptions
-            account.setStatus(AccountStockStatus.MAINTENANCE);
-            account.setVerifyDate(LocalDateTime.now());
-            steamAccountRepository.save(account);
+            moveToMaintenance(account);
             return ValidationResult.ERROR;
         }
     }
 
+    private void moveToMaintenance(SteamAccount account) {
+        account.setStatus(AccountStockStatus.MAINTENANCE);
+        account.setVerifyDate(LocalDateTime.now());
+        steamAccountRepository.save(account);
+        accountStockService.refreshAvailableStock(account.getAccountInfo());
+    }
+
     public enum ValidationResult {
         VALID,
         VALID_GUARDED,
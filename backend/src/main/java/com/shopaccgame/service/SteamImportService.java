@@ -3,6 +3,7 @@ package com.shopaccgame.service;
 import com.shopaccgame.entity.Game;
 import com.shopaccgame.repository.GameRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -28,6 +29,9 @@ public class SteamImportService {
     @Autowired
     private RestTemplate restTemplate;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Value("${app.upload.path:uploads}")
     private String uploadPath;
     
@@ -159,6 +163,7 @@ public class SteamImportService {
             }
             
             System.out.println("Import completed. Total imported: " + totalImported + ", Total errors: " + totalErrors);
+            eventPublisher.publishEvent(CatalogChangedEvent.games());
             return String.format("Import completed. Imported: %d games, Errors: %d", totalImported, totalErrors);
             
         } catch (Exception e) {
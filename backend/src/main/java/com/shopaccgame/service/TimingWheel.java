@@ -0,0 +1,130 @@
+package com.shopaccgame.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: O(1) scheduling of many deadlines with tick granularity.
+ * Each level has wheelSize buckets of tickMs; deadlines beyond a level's span go to a coarser
+ * overflow level, created on demand, and cascade back down as the clock reaches their bucket.
+ * An item fires on the first advanceTo whose time is past its deadline, never before it.
+ * Not thread-safe; callers synchronize.
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long intervalMs;
+    private final List<List<Timeout<T>>> buckets;
+    private final boolean root;
+    // Start of the current tick; always a multiple of tickMs
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this(tickMs, wheelSize, startMs, true);
+    }
+
+    private TimingWheel(long tickMs, int wheelSize, long startMs, boolean root) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.intervalMs = tickMs * wheelSize;
+        this.root = root;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedule item at deadlineMs
+     * @return false when the deadline has already passed and the caller should act on it now
+     */
+    public boolean add(T item, long deadlineMs) {
+        if (deadlineMs < currentTime) {
+            return false;
+        }
+        place(new Timeout<>(item, deadlineMs), null);
+        size++;
+        return true;
+    }
+
+    /**
+     * Move the clock forward to nowMs and hand every item whose deadline is now past to expired
+     */
+    public void advanceTo(long nowMs, Consumer<T> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            // Every deadline in the current bucket is before currentTime + tickMs <= nowMs
+            drain(bucketFor(currentTime), timeout -> {
+                size--;
+                expired.accept(timeout.item);
+            });
+            currentTime += tickMs;
+            if (overflowWheel != null && currentTime % intervalMs == 0) {
+                // Entering a new overflow bucket: spread its items over this level's buckets
+                overflowWheel.enterTick(currentTime, timeout -> place(timeout, null));
+            }
+        }
+    }
+
+    /**
+     * Number of scheduled items, including those waiting in overflow levels
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Overflow levels: move to the tick starting at startMs and hand its bucket to the finer level
+     */
+    private void enterTick(long startMs, Consumer<Timeout<T>> finer) {
+        currentTime = startMs;
+        if (overflowWheel != null && currentTime % intervalMs == 0) {
+            overflowWheel.enterTick(currentTime, timeout -> place(timeout, finer));
+        }
+        drain(bucketFor(currentTime), finer);
+    }
+
+    /**
+     * @param finer receives items that belong in this level's current tick, which overflow levels
+     *              have already handed down; unused on the root level, whose current tick drains on advance
+     */
+    private void place(Timeout<T> timeout, Consumer<Timeout<T>> finer) {
+        if (!root && timeout.deadlineMs < currentTime + tickMs) {
+            finer.accept(timeout);
+        } else if (timeout.deadlineMs < currentTime + intervalMs) {
+            bucketFor(timeout.deadlineMs).add(timeout);
+        } else {
+            if (overflowWheel == null) {
+                overflowWheel = new TimingWheel<>(intervalMs, wheelSize, currentTime, false);
+            }
+            overflowWheel.place(timeout, t -> bucketFor(t.deadlineMs).add(t));
+        }
+    }
+
+    private List<Timeout<T>> bucketFor(long timeMs) {
+        return buckets.get((int) ((timeMs / tickMs) % wheelSize));
+    }
+
+    private static <T> void drain(List<Timeout<T>> bucket, Consumer<Timeout<T>> sink) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timeout<T>> items = new ArrayList<>(bucket);
+        bucket.clear();
+        items.forEach(sink);
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMs;
+
+        private Timeout(T item, long deadlineMs) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
@@ -1,52 +1,52 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.config.RetryOnConflict;
+import com.shopaccgame.entity.BalanceLedgerEntry;
 import com.shopaccgame.entity.User;
-import com.shopaccgame.entity.WalletDeposit;
 import com.shopaccgame.repository.UserRepository;
-import com.shopaccgame.repository.WalletDepositRepository;
+import com.shopaccgame.repository.projection.BalanceUpdateView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Transactional
 public class UserBalanceService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserBalanceService.class);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private WalletDepositRepository walletDepositRepository;
+    private BalanceLedgerService balanceLedgerService;
 
     /**
-     * Calculate and update user balance based on paid deposits
+     * Reset the stored balance to what the user's ledger adds up to
      * @param username - Username to update balance for
      * @return Updated balance amount
      */
+    @RetryOnConflict
     public BigDecimal calculateAndUpdateBalance(String username) {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("User not found: " + username));
 
-        // Get all paid deposits for the user
-        List<WalletDeposit> paidDeposits = walletDepositRepository
-            .findAllByUser_UsernameOrderByCreatedAtDesc(username)
-            .stream()
-            .filter(deposit -> deposit.getStatus() == WalletDeposit.Status.PAID)
-            .toList();
-
-        // Calculate total balance
-        BigDecimal totalBalance = paidDeposits.stream()
-            .map(WalletDeposit::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Update user balance
-        user.setBalance(totalBalance);
-        userRepository.save(user);
+        BigDecimal ledgerBalance = balanceLedgerService.getLedgerBalance(user.getId());
+        BigDecimal currentBalance = user.getBalance() != null ? user.getBalance() : BigDecimal.ZERO;
+        if (currentBalance.compareTo(ledgerBalance) != 0) {
+            logger.warn("Balance of user {} was {} but the ledger adds up to {}; corrected", username, currentBalance, ledgerBalance);
+            user.setBalance(ledgerBalance);
+            userRepository.save(user);
+        }
 
-        return totalBalance;
+        return ledgerBalance;
     }
 
     /**
@@ -61,41 +61,82 @@ public class UserBalanceService {
     }
 
     /**
-     * Update balance when a deposit is marked as paid
+     * Credit the balance and record the credit in the ledger
      * @param username - Username to update balance for
-     * @param depositAmount - Amount of the deposit
+     * @param amount - Amount to credit
+     * @param type - Ledger entry type: DEPOSIT or REFUND
+     * @param reference - Deposit or order id
+     * @return New balance
      */
-    public void addToBalance(String username, BigDecimal depositAmount) {
-        User user = userRepository.findByUsername(username)
+    public BigDecimal addToBalance(String username, BigDecimal amount, BalanceLedgerEntry.Type type, String reference) {
+        BalanceUpdateView updated = userRepository.applyBalanceDelta(username, amount)
             .orElseThrow(() -> new RuntimeException("User not found: " + username));
-
-        BigDecimal currentBalance = user.getBalance() != null ? user.getBalance() : BigDecimal.ZERO;
-        BigDecimal newBalance = currentBalance.add(depositAmount);
-        
-        user.setBalance(newBalance);
-        userRepository.save(user);
+        record(updated, amount, type, reference);
+        return updated.getBalance();
     }
 
     /**
      * Deduct from balance (for purchases)
      * @param username - Username to deduct from
      * @param amount - Amount to deduct
+     * @param orderId - Order paid for
      * @return true if successful, false if insufficient balance
      */
-    public boolean deductFromBalance(String username, BigDecimal amount) {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found: " + username));
-
-        BigDecimal currentBalance = user.getBalance() != null ? user.getBalance() : BigDecimal.ZERO;
-        
-        if (currentBalance.compareTo(amount) < 0) {
+    public boolean deductFromBalance(String username, BigDecimal amount, String orderId) {
+        Optional<BalanceUpdateView> updated = userRepository.applyBalanceDelta(username, amount.negate());
+        if (updated.isEmpty()) {
+            if (!userRepository.existsByUsername(username)) {
+                throw new RuntimeException("User not found: " + username);
+            }
             return false; // Insufficient balance
         }
+        record(updated.get(), amount.negate(), BalanceLedgerEntry.Type.PURCHASE, orderId);
+        return true;
+    }
 
-        BigDecimal newBalance = currentBalance.subtract(amount);
-        user.setBalance(newBalance);
-        userRepository.save(user);
-        
+    /**
+     * Deduct the total of several orders with one balance UPDATE, recording one PURCHASE entry per order
+     * @param amountByOrderId - Amount of each order, keyed by its order id
+     * @return true if successful, false if insufficient balance
+     */
+    public boolean deductForOrders(String username, Map<String, BigDecimal> amountByOrderId) {
+        BigDecimal total = amountByOrderId.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        Optional<BalanceUpdateView> updated = userRepository.applyBalanceDelta(username, total.negate());
+        if (updated.isEmpty()) {
+            if (!userRepository.existsByUsername(username)) {
+                throw new RuntimeException("User not found: " + username);
+            }
+            return false; // Insufficient balance
+        }
+        Map<String, BigDecimal> debits = new LinkedHashMap<>();
+        amountByOrderId.forEach((orderId, amount) -> debits.put(orderId, amount.negate()));
+        balanceLedgerService.recordAll(userRepository.getReferenceById(updated.get().getId()), debits,
+            BalanceLedgerEntry.Type.PURCHASE);
         return true;
     }
+
+    /**
+     * Manual correction by an admin; amount may be negative but the balance may not go below zero
+     * @return New balance
+     */
+    public BigDecimal adjustBalance(String username, BigDecimal amount, String note) {
+        if (amount == null || amount.signum() == 0) {
+            throw new IllegalArgumentException("Adjustment amount must be non-zero");
+        }
+        Optional<BalanceUpdateView> updated = userRepository.applyBalanceDelta(username, amount);
+        if (updated.isEmpty()) {
+            if (!userRepository.existsByUsername(username)) {
+                throw new RuntimeException("User not found: " + username);
+            }
+            throw new RuntimeException("Adjustment would make the balance negative");
+        }
+        record(updated.get(), amount, BalanceLedgerEntry.Type.ADJUSTMENT, note);
+        logger.info("Balance of user {} adjusted by {} ({}), new balance {}", username, amount, note, updated.get().getBalance());
+        return updated.get().getBalance();
+    }
+
+    private void record(BalanceUpdateView updated, BigDecimal amount, BalanceLedgerEntry.Type type, String reference) {
+        // The UPDATE bypassed the persistence context; a reference is all the ledger entry needs
+        balanceLedgerService.record(userRepository.getReferenceById(updated.getId()), amount, type, reference);
+    }
 }
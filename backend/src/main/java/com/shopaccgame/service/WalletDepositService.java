@@ -1,21 +1,30 @@
 package com.shopaccgame.service;
 
+import com.shopaccgame.config.RetryOnConflict;
+import com.shopaccgame.entity.BalanceLedgerEntry;
 import com.shopaccgame.entity.User;
 import com.shopaccgame.entity.WalletDeposit;
 import com.shopaccgame.repository.UserRepository;
 import com.shopaccgame.repository.WalletDepositRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 @Transactional
 public class WalletDepositService {
 
+    private static final Logger logger = LoggerFactory.getLogger(WalletDepositService.class);
+
     @Autowired
     private WalletDepositRepository depositRepository;
 
@@ -25,6 +34,9 @@ public class WalletDepositService {
     @Autowired
     private UserBalanceService userBalanceService;
 
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+
     public WalletDeposit createDeposit(String username, BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
@@ -36,21 +48,43 @@ public class WalletDepositService {
         String depositId = generateDepositId();
         WalletDeposit deposit = new WalletDeposit(user, amount, depositId);
         deposit.setQrCodeUrl(generateQrCodeUrl(depositId, amount));
-        return depositRepository.save(deposit);
+        WalletDeposit savedDeposit = depositRepository.save(deposit);
+        expiryScheduler.scheduleDepositExpiry(savedDeposit.getId(), savedDeposit.getExpiresAt());
+        return savedDeposit;
     }
 
+    @RetryOnConflict
     public WalletDeposit markDepositPaid(String depositId) {
-        WalletDeposit deposit = depositRepository.findByDepositId(depositId)
+        // Locked: a webhook retried while the first delivery is still running waits here and then sees PAID
+        WalletDeposit deposit = depositRepository.lockByDepositId(depositId)
             .orElseThrow(() -> new RuntimeException("Deposit not found"));
+        // Webhooks can be delivered and retried more than once; credit the balance only the first time
+        if (deposit.getStatus() == WalletDeposit.Status.PAID) {
+            logger.info("Deposit {} is already paid", depositId);
+            return deposit;
+        }
         deposit.markAsPaid();
         WalletDeposit savedDeposit = depositRepository.save(deposit);
         
         // Update user balance
-        userBalanceService.addToBalance(deposit.getUser().getUsername(), deposit.getAmount());
+        userBalanceService.addToBalance(deposit.getUser().getUsername(), deposit.getAmount(),
+            BalanceLedgerEntry.Type.DEPOSIT, depositId);
         
         return savedDeposit;
     }
 
+    /**
+     * Reconciliation sweep for pending deposits the ExpiryScheduler missed
+     */
+    @Scheduled(fixedRate = 600000) // Run every 10 minutes
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireOldDeposits() {
+        int expired = depositRepository.expireOverdueDeposits(LocalDateTime.now());
+        if (expired > 0) {
+            logger.info("Expired {} pending deposit(s)", expired);
+        }
+    }
+
     public WalletDeposit getByDepositId(String depositId) {
         return depositRepository.findByDepositId(depositId)
             .orElseThrow(() -> new RuntimeException("Deposit not found"));
@@ -0,0 +1,301 @@
+package com.shopaccgame.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopaccgame.dto.SepayWebhookDto;
+import com.shopaccgame.entity.WebhookInboxMessage;
+import com.shopaccgame.repository.WebhookInboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inbox for Sepay payment webhooks. The webhook endpoint only stores the raw payload (one INSERT,
+ * deduplicated by transaction id) and acknowledges; a pool of workers claims stored messages in
+ * batches and marks the referenced orders and deposits paid. Database conflicts and outages are
+ * retried with exponential backoff, so a burst of webhooks queues here instead of holding request
+ * threads on row locks.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("(ORD|DEP|DNT)\\d+");
+    // A claimed message stays invisible to other workers this long; covers a worker dying mid-batch
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration RETRY_BASE_DELAY = Duration.ofSeconds(5);
+    private static final Duration RETRY_MAX_DELAY = Duration.ofMinutes(5);
+    private static final int MAX_ERROR_LENGTH = 2000;
+    // Bank retry storms repeat a handful of recent transactions; this covers hours of normal traffic
+    private static final int RECENT_TRANSACTION_IDS = 10000;
+
+    @Autowired
+    private WebhookInboxRepository inboxRepository;
+
+    @Autowired
+    private SteamAccountOrderService orderService;
+
+    @Autowired
+    private WalletDepositService walletDepositService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.webhook-inbox.workers:4}")
+    private int workers;
+
+    @Value("${app.webhook-inbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.webhook-inbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private ExecutorService workerPool;
+    // Transaction ids this instance has stored, most recent last. Exact rather than probabilistic:
+    // a false positive would drop a payment. Misses (older ids, other instances) fall through to the
+    // unique key on webhook_inbox.transaction_id, which stays the source of truth.
+    private final Map<String, Boolean> recentTransactionIds = Collections.synchronizedMap(
+        new LinkedHashMap<>(RECENT_TRANSACTION_IDS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RECENT_TRANSACTION_IDS;
+            }
+        });
+    private final AtomicLong pendingMessages = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+
+    private Counter queuedCounter;
+    private Counter duplicateCounter;
+    private Counter processedCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer processingTimer;
+    private Timer deliveryLagTimer;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-inbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        queuedCounter = Counter.builder("webhook.inbox.received").tag("result", "queued").register(meterRegistry);
+        duplicateCounter = Counter.builder("webhook.inbox.received").tag("result", "duplicate").register(meterRegistry);
+        processedCounter = Counter.builder("webhook.inbox.messages").tag("outcome", "processed").register(meterRegistry);
+        retriedCounter = Counter.builder("webhook.inbox.messages").tag("outcome", "retried").register(meterRegistry);
+        failedCounter = Counter.builder("webhook.inbox.messages").tag("outcome", "failed").register(meterRegistry);
+        // Time a worker spends applying one message
+        processingTimer = Timer.builder("webhook.inbox.processing").register(meterRegistry);
+        // Receipt to successful processing, including queueing and retries
+        deliveryLagTimer = Timer.builder("webhook.inbox.delivery.lag").register(meterRegistry);
+        Gauge.builder("webhook.inbox.pending", pendingMessages, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("webhook.inbox.oldest.age", oldestPendingAgeSeconds, AtomicLong::get)
+            .baseUnit("seconds").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workerPool.shutdown();
+        // Unfinished messages are claimed again once their lease runs out
+        workerPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Store a webhook for processing
+     * @return false when this transaction was already received
+     */
+    public boolean enqueue(String transactionId, String payload) {
+        if (recentTransactionIds.containsKey(transactionId)) {
+            duplicateCounter.increment();
+            return false;
+        }
+        boolean queued = inboxRepository.enqueue(transactionId, payload, LocalDateTime.now()) > 0;
+        // Stored now either way, by this call or an earlier one
+        recentTransactionIds.put(transactionId, Boolean.TRUE);
+        (queued ? queuedCounter : duplicateCounter).increment();
+        return queued;
+    }
+
+    /**
+     * Order (ORD...) and deposit (DEP... or DNT...) references found in code, content, referenceCode and description
+     */
+    public static List<String> extractReferences(SepayWebhookDto webhook) {
+        Set<String> references = new LinkedHashSet<>();
+        addReferences(references, webhook.getCode());
+        addReferences(references, webhook.getContent());
+        addReferences(references, webhook.getReferenceCode());
+        addReferences(references, webhook.getDescription());
+        return new ArrayList<>(references);
+    }
+
+    /**
+     * Drain due messages until a claim comes back short of a full batch
+     */
+    @Scheduled(fixedDelay = 500)
+    public void drain() {
+        try {
+            List<WebhookInboxMessage> batch;
+            do {
+                LocalDateTime now = LocalDateTime.now();
+                batch = inboxRepository.claimDue(now, now.plus(LEASE), batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Callable<Void>> tasks = new ArrayList<>(batch.size());
+                for (WebhookInboxMessage message : batch) {
+                    tasks.add(() -> {
+                        processingTimer.record(() -> process(message));
+                        return null;
+                    });
+                }
+                workerPool.invokeAll(tasks);
+            } while (batch.size() == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Claimed messages become due again when their lease expires
+            logger.error("Failed to drain webhook inbox: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 10000)
+    public void refreshBacklogMetrics() {
+        try {
+            pendingMessages.set(inboxRepository.countPending());
+            LocalDateTime oldest = inboxRepository.findOldestPendingReceivedAt();
+            oldestPendingAgeSeconds.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).getSeconds());
+        } catch (Exception e) {
+            logger.warn("Failed to refresh webhook inbox metrics: {}", e.getMessage());
+        }
+    }
+
+    private void process(WebhookInboxMessage message) {
+        try {
+            SepayWebhookDto webhook = objectMapper.readValue(message.getPayload(), SepayWebhookDto.class);
+            List<String> unresolved = applyPayment(webhook);
+            LocalDateTime now = LocalDateTime.now();
+            inboxRepository.markProcessed(message.getId(), now,
+                unresolved.isEmpty() ? null : truncate("Unresolved references: " + unresolved));
+            processedCounter.increment();
+            deliveryLagTimer.record(Duration.between(message.getReceivedAt(), now));
+        } catch (JsonProcessingException e) {
+            // Was valid JSON when received; retrying cannot help
+            fail(message, e);
+        } catch (Exception e) {
+            if (message.getAttempts() >= maxAttempts) {
+                fail(message, e);
+                return;
+            }
+            Duration delay = retryDelay(message.getAttempts());
+            logger.warn("Webhook transaction {} failed on attempt {}, retrying in {}s: {}",
+                message.getTransactionId(), message.getAttempts(), delay.getSeconds(), e.getMessage());
+            inboxRepository.scheduleRetry(message.getId(), LocalDateTime.now().plus(delay), truncate(e.getMessage()));
+            retriedCounter.increment();
+        }
+    }
+
+    /**
+     * Mark every referenced order and deposit paid. Business rejections (unknown reference, order no
+     * longer payable) are logged and returned, as the synchronous endpoint used to report them;
+     * transient database errors propagate so the whole message is retried.
+     * @return references that could not be applied
+     */
+    private List<String> applyPayment(SepayWebhookDto webhook) {
+        List<String> unresolved = new ArrayList<>();
+        for (String ref : extractReferences(webhook)) {
+            try {
+                if (ref.startsWith("ORD")) {
+                    orderService.markOrderAsPaid(ref);
+                    logger.info("Payment confirmed for order: {} with transaction ID: {}", ref, webhook.getId());
+                } else if (ref.startsWith("DEP") || ref.startsWith("DNT")) {
+                    walletDepositService.markDepositPaid(ref);
+                    logger.info("Payment confirmed for deposit: {} with transaction ID: {}", ref, webhook.getId());
+                } else {
+                    logger.warn("Unknown reference prefix for webhook: {}", ref);
+                    unresolved.add(ref);
+                }
+            } catch (Exception ex) {
+                if (isTransient(ex)) {
+                    throw ex;
+                }
+                logger.error("Failed processing reference {} for transaction {}: {}", ref, webhook.getId(), ex.getMessage());
+                unresolved.add(ref);
+            }
+        }
+        return unresolved;
+    }
+
+    private void fail(WebhookInboxMessage message, Exception e) {
+        logger.error("Giving up on webhook transaction {} after {} attempt(s): {}",
+            message.getTransactionId(), message.getAttempts(), e.getMessage());
+        inboxRepository.markFailed(message.getId(), LocalDateTime.now(), truncate(e.getMessage()));
+        failedCounter.increment();
+    }
+
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+            || e instanceof DataAccessResourceFailureException
+            || e instanceof CannotCreateTransactionException;
+    }
+
+    private static Duration retryDelay(int attempts) {
+        Duration delay = RETRY_BASE_DELAY.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(RETRY_MAX_DELAY) > 0 ? RETRY_MAX_DELAY : delay;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static void addReferences(Set<String> references, String value) {
+        if (value == null) {
+            return;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || "null".equalsIgnoreCase(trimmed)) {
+            return;
+        }
+        Matcher matcher = REFERENCE_PATTERN.matcher(trimmed);
+        while (matcher.find()) {
+            references.add(matcher.group());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Denormalized IN_STOCK counter read by listing DTOs instead of loading every steam account
+ALTER TABLE account_info ADD COLUMN IF NOT EXISTS available_stock BIGINT NOT NULL DEFAULT 0;
+
+UPDATE account_info ai
+SET available_stock = (
+    SELECT COUNT(*) FROM steam_accounts sa
+    WHERE sa.account_info_id = ai.id AND sa.status = 'IN_STOCK'
+);
+
+-- Serves the per-listing recount issued on every status change
+CREATE INDEX IF NOT EXISTS idx_steam_accounts_account_info_status ON steam_accounts (account_info_id, status);
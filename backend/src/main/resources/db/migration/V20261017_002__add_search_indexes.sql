@@ -0,0 +1,32 @@
+-- Full-text + trigram search for games and account listings (requires PostgreSQL 12+)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() is only STABLE; this wrapper pins the dictionary so it can be used in indexes
+-- and generated columns. Folds Vietnamese diacritics (e.g. "Đấu Trường" -> "Dau Truong").
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent', $1) $$;
+
+-- Games: name weighted above description
+ALTER TABLE games ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', f_unaccent(coalesce(name, ''))), 'A') ||
+        setweight(to_tsvector('simple', f_unaccent(coalesce(description, ''))), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_games_search_vector ON games USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_games_name_trgm ON games USING GIN (f_unaccent(lower(name)) gin_trgm_ops);
+
+-- Account listings
+ALTER TABLE account_info ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', f_unaccent(coalesce(name, ''))), 'A') ||
+        setweight(to_tsvector('simple', f_unaccent(coalesce(description, ''))), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_account_info_search_vector ON account_info USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_account_info_name_trgm ON account_info USING GIN (f_unaccent(lower(name)) gin_trgm_ops);
+
+-- Serves the game -> listings lookup behind game-name search
+CREATE INDEX IF NOT EXISTS idx_account_games_game_id ON account_games (game_id, account_info_id);
@@ -0,0 +1,5 @@
+-- Storefront search (/steam-accounts/search) only ever reads IN_STOCK rows, newest first
+CREATE INDEX IF NOT EXISTS idx_steam_accounts_in_stock ON steam_accounts (account_info_id, id DESC) WHERE status = 'IN_STOCK';
+
+-- Prefix match on account code (lower(account_code) LIKE 'abc%')
+CREATE INDEX IF NOT EXISTS idx_steam_accounts_account_code_prefix ON steam_accounts (lower(account_code) text_pattern_ops);
@@ -0,0 +1,4 @@
+-- Optimistic locking (@Version) for rows that concurrent requests and scheduled jobs update
+ALTER TABLE steam_accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE steam_account_orders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Bulk expiry scans only PENDING orders past their deadline
+CREATE INDEX IF NOT EXISTS idx_steam_account_orders_pending_expiry ON steam_account_orders (expires_at) WHERE status = 'PENDING';
@@ -0,0 +1,2 @@
+-- Expiry sweeps scan only PENDING deposits past their deadline
+CREATE INDEX IF NOT EXISTS idx_wallet_deposits_pending_expiry ON wallet_deposits (expires_at) WHERE status = 'PENDING';
@@ -0,0 +1,16 @@
+-- Payment webhooks are stored here on receipt and applied by WebhookInboxService workers.
+-- transaction_id is the gateway's id, so a redelivered webhook is acknowledged without a second row.
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(64) NOT NULL UNIQUE,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    received_at TIMESTAMP NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP,
+    last_error TEXT
+);
+
+-- Workers claim PENDING messages that are due
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pending ON webhook_inbox (next_attempt_at) WHERE status = 'PENDING';
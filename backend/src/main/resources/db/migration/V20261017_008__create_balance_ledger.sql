@@ -0,0 +1,24 @@
+-- Every change to users.balance as a signed entry, written in the same transaction as the balance
+CREATE TABLE IF NOT EXISTS balance_ledger (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    amount NUMERIC(12, 2) NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    reference VARCHAR(64),
+    created_at TIMESTAMP NOT NULL
+);
+
+-- A user's entries after their snapshot
+CREATE INDEX IF NOT EXISTS idx_balance_ledger_user_id ON balance_ledger (user_id, id);
+
+-- Ledger balance of each user up to and including last_entry_id
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    user_id BIGINT PRIMARY KEY REFERENCES users (id),
+    balance NUMERIC(14, 2) NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    taken_at TIMESTAMP NOT NULL
+);
+
+-- Balances from before the ledger existed become its opening entries
+INSERT INTO balance_ledger (user_id, amount, entry_type, created_at)
+SELECT id, balance, 'OPENING', NOW() FROM users WHERE balance IS NOT NULL AND balance <> 0;
@@ -0,0 +1,47 @@
+package com.shopaccgame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base for tests that need the real database: the repositories use PostgreSQL-only SQL
+ * (SKIP LOCKED, RETURNING, ON CONFLICT). Skipped when Docker is not available.
+ * Scheduled jobs are stopped and every table is emptied before each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    // One container for the whole run, shared by the cached Spring context; removed when the JVM exits
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScheduledAnnotationBeanPostProcessor scheduledTasks;
+
+    @BeforeEach
+    void resetDatabase() {
+        scheduledTasks.getScheduledTasks().forEach(ScheduledTask::cancel);
+        String tables = String.join(", ", jdbcTemplate.queryForList(
+            "SELECT quote_ident(tablename) FROM pg_tables WHERE schemaname = current_schema()", String.class));
+        if (!tables.isEmpty()) {
+            jdbcTemplate.execute("TRUNCATE " + tables + " RESTART IDENTITY CASCADE");
+        }
+    }
+}
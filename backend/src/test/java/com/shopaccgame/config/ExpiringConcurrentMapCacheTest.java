@@ -0,0 +1,61 @@
+package com.shopaccgame.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringConcurrentMapCacheTest {
+
+    @Test
+    void entriesAreServedUntilTheyExpire() {
+        ExpiringConcurrentMapCache cache = new ExpiringConcurrentMapCache("games", Duration.ofMinutes(10), 100);
+        cache.put(1L, "Elden Ring");
+        cache.put(2L, null);
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("Elden Ring");
+        // A cached null is still a hit
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.get(2L).get()).isNull();
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndDropped() {
+        ExpiringConcurrentMapCache cache = new ExpiringConcurrentMapCache("games", Duration.ZERO, 100);
+        cache.put(1L, "Elden Ring");
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getNativeCache()).isEmpty();
+    }
+
+    @Test
+    void loaderRunsAgainOnceExpired() {
+        ExpiringConcurrentMapCache cache = new ExpiringConcurrentMapCache("games", Duration.ZERO, 100);
+        cache.put(1L, "Old name");
+
+        assertThat(cache.get(1L, () -> "New name")).isEqualTo("New name");
+    }
+
+    @Test
+    void purgeDropsOnlyExpiredEntries() throws InterruptedException {
+        ExpiringConcurrentMapCache cache = new ExpiringConcurrentMapCache("games", Duration.ofMillis(50), 100);
+        cache.put(1L, "Elden Ring");
+        Thread.sleep(60);
+        cache.put(2L, "Counter-Strike 2");
+
+        assertThat(cache.purgeExpired()).isEqualTo(1);
+        assertThat(cache.getNativeCache()).containsOnlyKeys(2L);
+    }
+
+    @Test
+    void writesPastTheBoundDropTheOldestEntries() {
+        ExpiringConcurrentMapCache cache = new ExpiringConcurrentMapCache("games", Duration.ofMinutes(10), 3);
+        for (long id = 1; id <= 5; id++) {
+            cache.put(id, "Game " + id);
+        }
+        cache.get(6L, () -> "Game 6");
+
+        assertThat(cache.getNativeCache()).containsOnlyKeys(4L, 5L, 6L);
+    }
+}
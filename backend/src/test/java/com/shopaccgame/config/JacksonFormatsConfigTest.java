@@ -0,0 +1,367 @@
+package com.shopaccgame.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.AdminOrderDto;
+import com.shopaccgame.dto.CartItemDto;
+import com.shopaccgame.dto.CatalogQueryResultDto;
+import com.shopaccgame.dto.CursorPageDto;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.dto.GamePageResponseDto;
+import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.dto.RevenueStatsDto;
+import com.shopaccgame.dto.SteamAccountAdminDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.dto.UnavailableCartItemDto;
+import com.shopaccgame.dto.UserDto;
+import com.shopaccgame.entity.User;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.entity.enums.OrderStatus;
+import com.shopaccgame.service.ResponseFormats;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JsonTest
+@Import({JacksonFormatsConfig.class, ResponseFormats.class})
+class JacksonFormatsConfigTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JacksonFormatsConfigTest.class);
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 9, 30, 15, 123_000_000);
+    private static final List<MediaType> BINARY_FORMATS = List.of(ResponseFormats.APPLICATION_SMILE,
+        MediaType.APPLICATION_CBOR);
+
+    @Autowired
+    private ResponseFormats responseFormats;
+
+    @Test
+    void negotiatesByAcceptQualityAndDefaultsToJson() {
+        assertThat(ResponseFormats.negotiate(null)).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(ResponseFormats.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(ResponseFormats.negotiate("not a media type")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(ResponseFormats.negotiate("application/x-jackson-smile")).isEqualTo(ResponseFormats.APPLICATION_SMILE);
+        assertThat(ResponseFormats.negotiate("application/cbor, application/json;q=0.9"))
+            .isEqualTo(MediaType.APPLICATION_CBOR);
+        // The wildcard ranks JSON above the explicitly lowered CBOR
+        assertThat(ResponseFormats.negotiate("*/*, application/cbor;q=0.5")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(ResponseFormats.negotiate("text/html")).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void binaryMappersShareJsonSettings() throws Exception {
+        for (MediaType format : BINARY_FORMATS) {
+            ObjectMapper mapper = responseFormats.objectMapper(format);
+            assertThat(mapper).isNotSameAs(jsonMapper());
+            assertThat(mapper.getSerializationConfig().getDefaultPropertyInclusion())
+                .isEqualTo(jsonMapper().getSerializationConfig().getDefaultPropertyInclusion());
+            // Dates go out the same way as in JSON, which needs the JavaTimeModule registered by Boot
+            assertThat(mapper.readTree(mapper.writeValueAsBytes(NOW)))
+                .isEqualTo(jsonMapper().readTree(jsonMapper().writeValueAsBytes(NOW)));
+        }
+    }
+
+    @Test
+    void steamAccountDtoRoundTrips() throws Exception {
+        assertRoundTrips(steamAccount(1), SteamAccountDto.class);
+    }
+
+    @Test
+    void orderResponseDtoRoundTrips() throws Exception {
+        OrderResponseDto order = new OrderResponseDto();
+        order.setId(42L);
+        order.setOrderId("ORD-20261017-0042");
+        order.setAccountId(7L);
+        order.setAccountName("Elden Ring Deluxe");
+        order.setAccountType("ONE_GAME");
+        order.setAmount(new BigDecimal("149000.50"));
+        order.setStatus(OrderStatus.PAID);
+        order.setPaymentMethod("VIETQR");
+        order.setQrCodeUrl("https://img.vietqr.io/image/ORD-20261017-0042.png");
+        order.setCreatedAt(NOW);
+        order.setExpiresAt(NOW.plusMinutes(15));
+        order.setPaidAt(NOW.plusMinutes(3));
+        order.setAccountUsername("tarnished01");
+        order.setAccountPassword("s3cret!");
+        order.setSteamGuard("X7K2P");
+
+        assertRoundTrips(order, OrderResponseDto.class);
+    }
+
+    @Test
+    void adminOrderDtoRoundTrips() throws Exception {
+        AdminOrderDto order = new AdminOrderDto();
+        order.setId(42L);
+        order.setOrderId("ORD-20261017-0042");
+        order.setUsername("buyer");
+        order.setUserEmail("buyer@example.com");
+        order.setAccountInfoName("Elden Ring + Đấu Trường Chân Lý");
+        order.setGameNames(List.of("Elden Ring", "Đấu Trường Chân Lý"));
+        order.setTotalAmount(new BigDecimal("1200000"));
+        order.setStatus(OrderStatus.DELIVERED.name());
+        order.setPaymentMethod("VIETQR");
+        order.setCreatedAt(NOW);
+        order.setPaidAt(NOW.plusMinutes(2));
+        order.setDeliveredAt(null);
+        order.setAccountUsername("tarnished01");
+        order.setAccountPassword("s3cret!");
+
+        assertRoundTrips(order, AdminOrderDto.class);
+    }
+
+    @Test
+    void accountInfoAndGameDtosRoundTrip() throws Exception {
+        assertRoundTrips(accountInfo(1), AccountInfoDto.class);
+        assertRoundTrips(game(3), GameDto.class);
+    }
+
+    @Test
+    void catalogQueryResultWithFacetsRoundTrips() throws Exception {
+        Map<String, List<CatalogQueryResultDto.FacetCount>> facets = new LinkedHashMap<>();
+        facets.put("accountType", List.of(new CatalogQueryResultDto.FacetCount("MULTI_GAMES", "Multi games", 12),
+            new CatalogQueryResultDto.FacetCount("ONE_GAME", "One game", 30)));
+        facets.put("game", List.of(new CatalogQueryResultDto.FacetCount("3", "Đấu Trường Chân Lý", 7)));
+
+        assertRoundTrips(new CatalogQueryResultDto(List.of(accountInfo(1), accountInfo(2)), 0, 2, 42, facets, 17),
+            CatalogQueryResultDto.class);
+    }
+
+    @Test
+    void cartDtosRoundTrip() throws Exception {
+        CartItemDto item = new CartItemDto();
+        item.setId(5L);
+        item.setSteamAccountId(1L);
+        item.setAccountInfoId(10L);
+        item.setAccountInfoName("Elden Ring Deluxe");
+        item.setAccountInfoImageUrl("https://cdn.example.com/listings/10.jpg");
+        item.setAccountInfoDescription("Full access, email included");
+        item.setUnitPrice(new BigDecimal("149000.50"));
+        item.setQuantity(2);
+        item.setAddedAt(NOW);
+
+        assertRoundTrips(item, CartItemDto.class);
+        assertRoundTrips(new UnavailableCartItemDto(5L, 10L, "Elden Ring Deluxe", 2, 1), UnavailableCartItemDto.class);
+    }
+
+    @Test
+    void steamAccountAdminDtoRoundTrips() throws Exception {
+        SteamAccountAdminDto account = new SteamAccountAdminDto();
+        account.setId(1L);
+        account.setAccountInfoId(10L);
+        account.setAccountCode("ACC-1");
+        account.setUsername("steam_user_1");
+        account.setPassword("s3cret!");
+        account.setSteamGuard("GUARD1");
+        account.setStatus(AccountStockStatus.SOLD);
+        account.setVerifyDate(NOW.minusDays(1));
+        account.setUpdatedAt(NOW);
+        account.setName("Listing 1");
+        account.setAccountType(AccountType.ONE_GAME);
+        account.setPrice(new BigDecimal("149000"));
+        account.setOriginalPrice(new BigDecimal("198666.67"));
+        account.setDiscountPercentage(25);
+        account.setImageUrl("https://cdn.example.com/listings/1.jpg");
+        account.setDescription("Full access, email included");
+        account.setStockQuantity(0L);
+        account.setGameIds(List.of(3L, 4L));
+
+        assertRoundTrips(account, SteamAccountAdminDto.class);
+    }
+
+    @Test
+    void userDtoRoundTrips() throws Exception {
+        UserDto user = new UserDto();
+        user.setId(9L);
+        user.setUsername("buyer");
+        user.setEmail("buyer@example.com");
+        user.setFirstName("Minh");
+        user.setLastName("Nguyễn");
+        user.setPhoneNumber("+84901234567");
+        user.setRole(User.Role.USER);
+        user.setOauthProvider(User.OAuthProvider.GOOGLE);
+        user.setProfilePicture("https://cdn.example.com/avatars/9.jpg");
+        user.setEmailVerified(true);
+        user.setBalance(new BigDecimal("250000.75"));
+        user.setCreatedAt(NOW);
+
+        assertRoundTrips(user, UserDto.class);
+    }
+
+    @Test
+    void revenueStatsDtoRoundTrips() throws Exception {
+        List<RevenueStatsDto.MonthlyRevenue> months = List.of(
+            new RevenueStatsDto.MonthlyRevenue("2026-09", new BigDecimal("3200000"), 21L),
+            new RevenueStatsDto.MonthlyRevenue("2026-10", new BigDecimal("4100000.50"), 27L));
+
+        assertRoundTrips(new RevenueStatsDto(new BigDecimal("7300000.50"), 48L, new BigDecimal("152083.34"),
+            new BigDecimal("28.13"), months), RevenueStatsDto.class);
+    }
+
+    @Test
+    void gamePageResponseDtoRoundTrips() throws Exception {
+        Page<GameDto> games = new PageImpl<>(List.of(game(3), game(4)), PageRequest.of(1, 2), 7);
+
+        assertRoundTrips(GamePageResponseDto.from(games), GamePageResponseDto.class);
+    }
+
+    @Test
+    void cursorPageRoundTrips() throws Exception {
+        CursorPageDto<AccountInfoDto> page = new CursorPageDto<>(List.of(accountInfo(1), accountInfo(2)), 2, true,
+            CursorPageDto.encodeCursor(new BigDecimal("90000"), 2L));
+        ObjectMapper json = jsonMapper();
+        for (MediaType format : BINARY_FORMATS) {
+            ObjectMapper mapper = responseFormats.objectMapper(format);
+            byte[] bytes = mapper.writeValueAsBytes(page);
+            assertSameTree(mapper.readTree(bytes), json.readTree(json.writeValueAsBytes(page)));
+        }
+    }
+
+    /**
+     * Not a microbenchmark: one warmed-up pass over a catalog-sized list, logged so format changes
+     * show up in the test output, plus the size check the binary formats exist for.
+     */
+    @Test
+    void binaryFormatsAreSmallerOnCatalogSizedLists() throws Exception {
+        List<AccountInfoDto> rows = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(accountInfo(i));
+        }
+        byte[] json = encode(jsonMapper(), rows);
+        decode(jsonMapper(), json);
+        for (MediaType format : BINARY_FORMATS) {
+            ObjectMapper mapper = responseFormats.objectMapper(format);
+            encode(mapper, rows);
+            long start = System.nanoTime();
+            byte[] bytes = encode(mapper, rows);
+            long encodeNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            AccountInfoDto[] decoded = decode(mapper, bytes);
+            long decodeNanos = System.nanoTime() - start;
+
+            logger.info("{}: {} bytes ({}% of JSON), encode {} ms, decode {} ms", format, bytes.length,
+                bytes.length * 100 / json.length, encodeNanos / 1_000_000, decodeNanos / 1_000_000);
+            assertThat(bytes.length).isLessThan(json.length);
+            assertThat(decoded).hasSameSizeAs(rows);
+            assertThat(decoded[decoded.length - 1]).usingRecursiveComparison().ignoringCollectionOrder()
+                .isEqualTo(rows.get(rows.size() - 1));
+        }
+        long start = System.nanoTime();
+        encode(jsonMapper(), rows);
+        long encodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        decode(jsonMapper(), json);
+        logger.info("{}: {} bytes, encode {} ms, decode {} ms", MediaType.APPLICATION_JSON, json.length,
+            encodeNanos / 1_000_000, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private <T> void assertRoundTrips(T dto, Class<T> type) throws Exception {
+        ObjectMapper json = jsonMapper();
+        JsonNode expected = json.readTree(json.writeValueAsBytes(dto));
+        for (MediaType format : BINARY_FORMATS) {
+            ObjectMapper mapper = responseFormats.objectMapper(format);
+            byte[] bytes = mapper.writeValueAsBytes(dto);
+
+            // Same fields and values as the JSON body, and the DTO reads back unchanged
+            assertSameTree(mapper.readTree(bytes), expected);
+            assertThat(mapper.readValue(bytes, type)).as("%s value", format)
+                .usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(dto);
+        }
+    }
+
+    /**
+     * Smile and CBOR keep BigDecimal as a decimal where JSON text reads back as an integer node,
+     * so numbers are compared by value.
+     */
+    private static void assertSameTree(JsonNode actual, JsonNode expected) {
+        Comparator<JsonNode> byValue = (a, b) -> a.isNumber() && b.isNumber()
+            ? a.decimalValue().compareTo(b.decimalValue())
+            : a.equals(b) ? 0 : 1;
+        assertThat(actual.equals(byValue, expected)).as("%s%nequals%n%s", actual, expected).isTrue();
+    }
+
+    private ObjectMapper jsonMapper() {
+        return responseFormats.objectMapper(MediaType.APPLICATION_JSON);
+    }
+
+    private static byte[] encode(ObjectMapper mapper, List<AccountInfoDto> rows) throws Exception {
+        return mapper.writeValueAsBytes(rows);
+    }
+
+    private static AccountInfoDto[] decode(ObjectMapper mapper, byte[] bytes) throws Exception {
+        return mapper.readValue(bytes, AccountInfoDto[].class);
+    }
+
+    private static SteamAccountDto steamAccount(long id) {
+        SteamAccountDto account = new SteamAccountDto();
+        account.setId(id);
+        account.setAccountInfoId(id * 10);
+        account.setAccountCode("ACC-" + id);
+        account.setUsername("steam_user_" + id);
+        account.setSteamGuard("GUARD" + id);
+        account.setStatus(AccountStockStatus.IN_STOCK);
+        account.setVerifyDate(NOW.minusDays(1));
+        account.setUpdatedAt(NOW);
+        account.setName("Listing " + id);
+        account.setDescription("Full access, email included");
+        account.setImageUrl("https://cdn.example.com/listings/" + id + ".jpg");
+        account.setAccountType(AccountType.MULTI_GAMES);
+        account.setPrice(new BigDecimal("149000"));
+        account.setDiscountPercentage(25);
+        account.setOriginalPrice(new BigDecimal("198666.67"));
+        account.setGames(List.of(game(1), game(2)));
+        account.setStockQuantity(3L);
+        return account;
+    }
+
+    private static AccountInfoDto accountInfo(long id) {
+        AccountInfoDto info = new AccountInfoDto();
+        info.setId(id);
+        info.setName("Listing " + id);
+        info.setDescription("Full access, email included");
+        info.setImageUrl("https://cdn.example.com/listings/" + id + ".jpg");
+        info.setAccountType(id % 2 == 0 ? AccountType.ONE_GAME : AccountType.MULTI_GAMES);
+        info.setPrice(BigDecimal.valueOf(40_000 + id * 1_000));
+        info.setDiscountPercentage((int) (id % 60));
+        info.setOriginalPrice(BigDecimal.valueOf(80_000 + id * 1_000));
+        info.setUpdatedAt(NOW);
+        info.setAvailableStockCount(id % 5);
+        info.setClassify(AccountClassification.STOCK);
+        Set<Long> gameIds = new HashSet<>(List.of(id % 7, id % 11 + 7));
+        info.setGameIds(gameIds);
+        Set<GameDto> games = new HashSet<>();
+        gameIds.forEach(gameId -> games.add(game(gameId)));
+        info.setGames(games);
+        return info;
+    }
+
+    private static GameDto game(long id) {
+        GameDto game = new GameDto();
+        game.setId(id);
+        game.setName("Game " + id);
+        game.setDescription("Description of game " + id);
+        game.setImageUrl("https://cdn.example.com/games/" + id + ".jpg");
+        game.setUpdatedAt(NOW);
+        return game;
+    }
+}
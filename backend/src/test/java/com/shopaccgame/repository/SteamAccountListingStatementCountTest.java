@@ -0,0 +1,164 @@
+package com.shopaccgame.repository;
+
+import com.shopaccgame.PostgresIntegrationTest;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.entity.Game;
+import com.shopaccgame.entity.SteamAccount;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.projection.SteamAccountCardView;
+import com.shopaccgame.service.CatalogService;
+import com.shopaccgame.service.SteamAccountServiceNew;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listing reads, through SteamAccount.GRAPH_ACCOUNT_INFO_GAMES or the storefront card projections,
+ * must not go back to the database per account or per listing: the number of statements stays
+ * fixed however many rows there are.
+ */
+class SteamAccountListingStatementCountTest extends PostgresIntegrationTest {
+
+    private static final int LISTINGS = 20;
+    private static final int ACCOUNTS_PER_LISTING = 3;
+    private static final int GAMES_PER_LISTING = 2;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private SteamAccountServiceNew steamAccountService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long firstAccountInfoId;
+
+    @BeforeEach
+    void seedListings() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < LISTINGS; i++) {
+                AccountInfo accountInfo = new AccountInfo("Listing " + i, "Description " + i,
+                    i % 2 == 0 ? AccountType.MULTI_GAMES : AccountType.ONE_GAME, BigDecimal.valueOf(100 + i));
+                for (int g = 0; g < GAMES_PER_LISTING; g++) {
+                    accountInfo.getGames().add(gameRepository.save(new Game("Game " + i + "-" + g, null)));
+                }
+                accountInfo = accountInfoRepository.save(accountInfo);
+                if (firstAccountInfoId == null) {
+                    firstAccountInfoId = accountInfo.getId();
+                }
+                for (int a = 0; a < ACCOUNTS_PER_LISTING; a++) {
+                    steamAccountRepository.save(new SteamAccount(accountInfo, "CODE-" + i + "-" + a, "user" + i + "_" + a, "secret"));
+                }
+            }
+        });
+    }
+
+    @Test
+    void fullListingLoadsGraphInOneStatement() {
+        List<SteamAccountDto> accounts = countStatements(1, steamAccountService::getAllSteamAccounts);
+
+        assertThat(accounts).hasSize(LISTINGS * ACCOUNTS_PER_LISTING);
+        assertThat(accounts).allSatisfy(account -> assertThat(account.getGames()).hasSize(GAMES_PER_LISTING));
+    }
+
+    @Test
+    void availableCardPageLoadsGameChipsInOneBatch() {
+        // Page, count, and one query for the game chips of every listing on the page
+        List<SteamAccountDto> cards = countStatements(3,
+            () -> withGameChips(steamAccountRepository.findAvailableCards(PageRequest.of(0, PAGE_SIZE)).getContent()));
+
+        assertThat(cards).hasSize(PAGE_SIZE);
+        assertThat(cards).allSatisfy(card -> assertThat(card.getGames()).hasSize(GAMES_PER_LISTING));
+    }
+
+    @Test
+    void availableCardPageByTypeLoadsGameChipsInOneBatch() {
+        List<SteamAccountDto> cards = countStatements(3, () -> withGameChips(steamAccountRepository
+            .findAvailableCardsByType(AccountType.MULTI_GAMES, PageRequest.of(0, PAGE_SIZE)).getContent()));
+
+        assertThat(cards).hasSize(PAGE_SIZE);
+        assertThat(cards).allSatisfy(card -> {
+            assertThat(card.getAccountType()).isEqualTo(AccountType.MULTI_GAMES);
+            assertThat(card.getGames()).hasSize(GAMES_PER_LISTING);
+        });
+    }
+
+    @Test
+    void gameNamePageLoadsCardsAndGameChipsInOneBatch() {
+        // Id page, count, the cards for those ids, and their game chips
+        Page<SteamAccountDto> page = countStatements(4, () -> steamAccountService.getAvailableAccountsByGameName("game",
+            steamAccountService.createListingPageable(0, PAGE_SIZE, "id", "desc")));
+
+        assertThat(page.getTotalElements()).isEqualTo(LISTINGS * ACCOUNTS_PER_LISTING);
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(card -> assertThat(card.getGames()).hasSize(GAMES_PER_LISTING));
+    }
+
+    @Test
+    void listingByAccountInfoLoadsGraphInOneStatement() {
+        List<SteamAccountDto> accounts = countStatements(1,
+            () -> steamAccountService.getSteamAccountsByAccountInfoId(firstAccountInfoId));
+
+        assertThat(accounts).hasSize(ACCOUNTS_PER_LISTING);
+    }
+
+    @Test
+    void pagedListingBatchLoadsGames() {
+        // Page, count, and one batch of games for every listing on the page
+        Page<SteamAccountDto> page = countStatements(3,
+            () -> steamAccountService.getSteamAccounts(PageRequest.of(0, LISTINGS * ACCOUNTS_PER_LISTING / 2)));
+
+        assertThat(page.getContent()).hasSize(LISTINGS * ACCOUNTS_PER_LISTING / 2);
+        assertThat(page.getContent()).allSatisfy(account -> assertThat(account.getGames()).hasSize(GAMES_PER_LISTING));
+    }
+
+    // Same assembly as the listing endpoints when the catalog snapshot is not available
+    private List<SteamAccountDto> withGameChips(List<SteamAccountCardView> cards) {
+        Map<Long, List<GameDto>> gamesByAccountInfo = catalogService.loadGameChips(cards.stream()
+            .map(SteamAccountCardView::getAccountInfoId)
+            .collect(Collectors.toSet()));
+        return cards.stream()
+            .map(card -> new SteamAccountDto(card, gamesByAccountInfo.getOrDefault(card.getAccountInfoId(), List.of())))
+            .collect(Collectors.toList());
+    }
+
+    private <T> T countStatements(long maxStatements, Supplier<T> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = read.get();
+        assertThat(statistics.getPrepareStatementCount())
+            .as("statements prepared by the listing read")
+            .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+}
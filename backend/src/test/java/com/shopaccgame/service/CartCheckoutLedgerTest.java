@@ -0,0 +1,79 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.PostgresIntegrationTest;
+import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.entity.SteamAccount;
+import com.shopaccgame.entity.User;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.SteamAccountRepository;
+import com.shopaccgame.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * A cart paid from the balance is one balance UPDATE but still one PURCHASE ledger entry per order,
+ * so each debit can be matched to the order it paid for and to that order's refund.
+ */
+class CartCheckoutLedgerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private SteamAccountOrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void balanceCheckoutRecordsOnePurchasePerOrder() {
+        List<OrderResponseDto> orders = transactionTemplate.execute(status -> {
+            User user = new User();
+            user.setUsername("buyer");
+            user.setEmail("buyer@example.com");
+            user.setPassword("password");
+            user.setRole(User.Role.USER);
+            user.setEnabled(true);
+            user.setBalance(new BigDecimal("500000"));
+            user = userRepository.save(user);
+
+            Map<Long, AccountInfo> cart = new LinkedHashMap<>();
+            for (long price : new long[] {100_000, 150_000}) {
+                AccountInfo listing = new AccountInfo("Listing " + price, "Full access", AccountType.ONE_GAME,
+                    BigDecimal.valueOf(price));
+                listing.setClassify(AccountClassification.STOCK);
+                listing = accountInfoRepository.save(listing);
+                SteamAccount account = steamAccountRepository.save(
+                    new SteamAccount(listing, "CODE-" + price, "steam" + price, "secret"));
+                cart.put(account.getId(), listing);
+            }
+            return orderService.createOrders(user, cart, true);
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM users WHERE username = 'buyer'", BigDecimal.class))
+            .isEqualByComparingTo("250000");
+        assertThat(jdbcTemplate.query("SELECT reference, amount, entry_type FROM balance_ledger ORDER BY id",
+                (rs, row) -> tuple(rs.getString(1), rs.getBigDecimal(2).stripTrailingZeros(), rs.getString(3))))
+            .containsExactly(
+                tuple(orders.get(0).getOrderId(), new BigDecimal("-1E+5"), "PURCHASE"),
+                tuple(orders.get(1).getOrderId(), new BigDecimal("-1.5E+5"), "PURCHASE"));
+    }
+}
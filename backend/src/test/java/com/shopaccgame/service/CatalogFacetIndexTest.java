@@ -0,0 +1,229 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.CatalogQueryDto;
+import com.shopaccgame.dto.CatalogQueryResultDto;
+import com.shopaccgame.dto.CatalogQueryResultDto.FacetCount;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogFacetIndexTest {
+
+    private static final long ELDEN = 1;
+    private static final long CS2 = 2;
+    private static final long DOTA = 3;
+
+    // id, type, classify, price, discount, games, card statuses
+    private final List<CatalogSnapshot.Listing> listings = List.of(
+        listing(1, AccountType.ONE_GAME, AccountClassification.STOCK, 40_000, 0, Set.of(ELDEN), AccountStockStatus.IN_STOCK),
+        listing(2, AccountType.ONE_GAME, AccountClassification.STOCK, 90_000, 10, Set.of(CS2), AccountStockStatus.IN_STOCK),
+        listing(3, AccountType.MULTI_GAMES, AccountClassification.STOCK, 150_000, 30, Set.of(ELDEN, CS2), AccountStockStatus.IN_STOCK),
+        listing(4, AccountType.MULTI_GAMES, AccountClassification.ORDER, 450_000, 50, Set.of(ELDEN, DOTA), AccountStockStatus.PRE_ORDER),
+        listing(5, AccountType.DISCOUNTED, AccountClassification.STOCK, 1_200_000, null, Set.of(DOTA), AccountStockStatus.IN_STOCK)
+    );
+
+    private final CatalogFacetIndex index = new CatalogFacetIndex(listings);
+
+    @Test
+    void unfilteredQueryReturnsNewestFirstWithAllCounts() {
+        CatalogQueryResultDto result = index.query(new CatalogQueryDto(), 7);
+
+        assertThat(ids(result)).containsExactly(5L, 4L, 3L, 2L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getCatalogVersion()).isEqualTo(7);
+        assertThat(counts(result, CatalogFacetIndex.FACET_ACCOUNT_TYPE))
+            .containsExactly(Map.entry("MULTI_GAMES", 2L), Map.entry("ONE_GAME", 2L), Map.entry("DISCOUNTED", 1L));
+        assertThat(counts(result, CatalogFacetIndex.FACET_PRICE)).containsExactly(
+            Map.entry("0-50000", 1L), Map.entry("50000-100000", 1L), Map.entry("100000-200000", 1L),
+            Map.entry("200000-500000", 1L), Map.entry("500000-1000000", 0L), Map.entry("1000000+", 1L));
+        // A missing discount counts as 0
+        assertThat(counts(result, CatalogFacetIndex.FACET_DISCOUNT)).containsExactly(
+            Map.entry("0", 2L), Map.entry("1-24", 1L), Map.entry("25-49", 1L), Map.entry("50+", 1L));
+        assertThat(counts(result, CatalogFacetIndex.FACET_GAMES))
+            .containsExactly(Map.entry(String.valueOf(ELDEN), 3L), Map.entry(String.valueOf(CS2), 2L),
+                Map.entry(String.valueOf(DOTA), 2L));
+    }
+
+    @Test
+    void combinedFiltersIntersectAndCountDisjunctively() {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setAccountTypes(Set.of(AccountType.MULTI_GAMES, AccountType.ONE_GAME));
+        query.setGameIds(Set.of(ELDEN));
+        query.setMaxPrice(BigDecimal.valueOf(200_000));
+
+        CatalogQueryResultDto result = index.query(query, 1);
+
+        assertThat(ids(result)).containsExactly(3L, 1L);
+        // Each dimension is counted with every other filter applied but not its own
+        assertThat(counts(result, CatalogFacetIndex.FACET_ACCOUNT_TYPE))
+            .containsExactly(Map.entry("MULTI_GAMES", 1L), Map.entry("ONE_GAME", 1L), Map.entry("DISCOUNTED", 0L));
+        assertThat(counts(result, CatalogFacetIndex.FACET_GAMES))
+            .containsEntry(String.valueOf(ELDEN), 2L).containsEntry(String.valueOf(CS2), 2L)
+            .doesNotContainKey(String.valueOf(DOTA));
+        assertThat(counts(result, CatalogFacetIndex.FACET_PRICE))
+            .containsEntry("200000-500000", 1L).containsEntry("0-50000", 1L);
+    }
+
+    @Test
+    void matchAllGamesRequiresEverySelectedGame() {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setGameIds(Set.of(ELDEN, CS2));
+
+        assertThat(ids(index.query(query, 1))).containsExactly(4L, 3L, 2L, 1L);
+
+        query.setMatchAllGames(true);
+        assertThat(ids(index.query(query, 1))).containsExactly(3L);
+    }
+
+    @Test
+    void priceBoundsAreInclusiveAndDiscountIsAMinimum() {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setMinPrice(BigDecimal.valueOf(90_000));
+        query.setMaxPrice(BigDecimal.valueOf(450_000));
+        query.setMinDiscount(30);
+
+        assertThat(ids(index.query(query, 1))).containsExactly(4L, 3L);
+    }
+
+    @Test
+    void stockStatusAndClassificationFilter() {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setStockStatuses(Set.of(AccountStockStatus.PRE_ORDER));
+        assertThat(ids(index.query(query, 1))).containsExactly(4L);
+
+        query = new CatalogQueryDto();
+        query.setClassifications(Set.of(AccountClassification.STOCK));
+        assertThat(ids(index.query(query, 1))).containsExactly(5L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void noMatchesGiveAnEmptyPageAndZeroCounts() {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setAccountTypes(Set.of(AccountType.OTHER_ACCOUNT));
+        query.setGameIds(Set.of(DOTA));
+
+        CatalogQueryResultDto result = index.query(query, 1);
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isZero();
+        assertThat(counts(result, CatalogFacetIndex.FACET_PRICE).values()).containsOnly(0L);
+        // A selected game is listed even without matches so the client can show it as checked
+        assertThat(counts(result, CatalogFacetIndex.FACET_GAMES)).containsOnly(Map.entry(String.valueOf(DOTA), 0L));
+        assertThat(new CatalogFacetIndex(List.of()).query(new CatalogQueryDto(), 1).getContent()).isEmpty();
+    }
+
+    @Test
+    void sortsByPriceDiscountAndName() {
+        assertThat(ids(index.query(sorted("price", "asc"), 1))).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(ids(index.query(sorted("price", "desc"), 1))).containsExactly(5L, 4L, 3L, 2L, 1L);
+        // Listings 1 and 5 tie at 0% discount; the newer one comes first
+        assertThat(ids(index.query(sorted("discount", "asc"), 1))).containsExactly(5L, 1L, 2L, 3L, 4L);
+        assertThat(ids(index.query(sorted("name", "asc"), 1))).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(ids(index.query(sorted(null, "asc"), 1))).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void pagesThroughMatches() {
+        CatalogQueryDto query = sorted("price", "asc");
+        query.setSize(2);
+        query.setPage(1);
+
+        CatalogQueryResultDto result = index.query(query, 1);
+
+        assertThat(ids(result)).containsExactly(3L, 4L);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void patchedIndexAnswersLikeAFreshBuild() {
+        Map<Long, CatalogSnapshot.Listing> changes = new LinkedHashMap<>();
+        changes.put(2L, null);
+        changes.put(3L, listing(3, AccountType.ONE_GAME, AccountClassification.ORDER, 600_000, 5, Set.of(DOTA),
+            AccountStockStatus.PRE_ORDER));
+        changes.put(6L, listing(6, AccountType.OTHER_ACCOUNT, AccountClassification.STOCK, 20_000, 60, Set.of(CS2),
+            AccountStockStatus.IN_STOCK));
+        CatalogFacetIndex patched = index.withListings(changes);
+
+        CatalogFacetIndex fresh = new CatalogFacetIndex(List.of(listings.get(0), changes.get(3L), listings.get(3),
+            listings.get(4), changes.get(6L)));
+        assertThat(patched.size()).isEqualTo(5);
+        for (CatalogQueryDto query : List.of(new CatalogQueryDto(), sorted("price", "desc"), sorted("name", "asc"),
+                gameFilter(CS2), gameFilter(DOTA))) {
+            CatalogQueryResultDto expected = fresh.query(query, 1);
+            CatalogQueryResultDto actual = patched.query(query, 1);
+            assertThat(ids(actual)).isEqualTo(ids(expected));
+            assertThat(actual.getFacets()).usingRecursiveComparison().isEqualTo(expected.getFacets());
+        }
+        // The source index is left as it was
+        assertThat(ids(index.query(new CatalogQueryDto(), 1))).containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void patchAddingAnOlderListingAsksForAFullBuild() {
+        CatalogFacetIndex shrunk = index.withListings(Collections.singletonMap(3L, null));
+
+        assertThat(shrunk.withListings(Map.of(3L, listings.get(2)))).isNotNull();
+        assertThat(new CatalogFacetIndex(List.of(listings.get(4))).withListings(Map.of(3L, listings.get(2)))).isNull();
+    }
+
+    private static CatalogQueryDto sorted(String sortBy, String sortDir) {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setSortBy(sortBy);
+        query.setSortDir(sortDir);
+        return query;
+    }
+
+    private static CatalogQueryDto gameFilter(long gameId) {
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setGameIds(Set.of(gameId));
+        return query;
+    }
+
+    private static List<Long> ids(CatalogQueryResultDto result) {
+        return result.getContent().stream().map(AccountInfoDto::getId).toList();
+    }
+
+    private static Map<String, Long> counts(CatalogQueryResultDto result, String facet) {
+        return result.getFacets().get(facet).stream()
+            .collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static CatalogSnapshot.Listing listing(long id, AccountType type, AccountClassification classify, long price,
+                                                   Integer discount, Set<Long> gameIds, AccountStockStatus status) {
+        AccountInfoDto summary = new AccountInfoDto();
+        summary.setId(id);
+        summary.setName("Listing " + id);
+        summary.setAccountType(type);
+        summary.setClassify(classify);
+        summary.setPrice(BigDecimal.valueOf(price));
+        summary.setDiscountPercentage(discount);
+        summary.setGameIds(gameIds);
+        summary.setGames(gameIds.stream().map(gameId -> {
+            GameDto game = new GameDto();
+            game.setId(gameId);
+            game.setName("Game " + gameId);
+            return game;
+        }).collect(Collectors.toSet()));
+        summary.setAvailableStockCount(status == AccountStockStatus.IN_STOCK ? 1 : 0);
+
+        SteamAccountDto card = new SteamAccountDto();
+        card.setId(id * 10);
+        card.setAccountInfoId(id);
+        card.setStatus(status);
+        return new CatalogSnapshot.Listing(summary, List.of(card));
+    }
+}
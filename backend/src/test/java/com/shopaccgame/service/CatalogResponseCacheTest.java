@@ -0,0 +1,102 @@
+package com.shopaccgame.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogResponseCacheTest {
+
+    private final CatalogResponseCache cache = new CatalogResponseCache();
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicInteger serializations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        CatalogService catalogService = mock(CatalogService.class, RETURNS_DEEP_STUBS);
+        when(catalogService.getSnapshot().getVersion()).thenAnswer(invocation -> version.get());
+        ResponseFormats responseFormats = mock(ResponseFormats.class);
+        when(responseFormats.objectMapper(any())).thenReturn(new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "catalogService", catalogService);
+        ReflectionTestUtils.setField(cache, "responseFormats", responseFormats);
+    }
+
+    @Test
+    void concurrentMissesShareOneSerialization() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<CatalogResponseCache.CachedResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("games:all", MediaType.APPLICATION_JSON, () -> {
+                    serializations.incrementAndGet();
+                    await(release);
+                    return List.of("Elden Ring");
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<CatalogResponseCache.CachedResponse> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS).getVersion()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(serializations).hasValue(1);
+    }
+
+    @Test
+    void newerVersionAndOtherFormatSerializeAgain() {
+        cache.get("games:all", MediaType.APPLICATION_JSON, this::body);
+        cache.get("games:all", MediaType.APPLICATION_JSON, this::body);
+        assertThat(serializations).hasValue(1);
+
+        cache.get("games:all", MediaType.APPLICATION_CBOR, this::body);
+        assertThat(serializations).hasValue(2);
+
+        version.set(2);
+        assertThat(cache.get("games:all", MediaType.APPLICATION_JSON, this::body).getVersion()).isEqualTo(2);
+        assertThat(serializations).hasValue(3);
+    }
+
+    @Test
+    void failedSerializationIsNotCached() {
+        assertThatThrownBy(() -> cache.get("games:all", MediaType.APPLICATION_JSON, () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("games:all", MediaType.APPLICATION_JSON, this::body).getSize()).isPositive();
+        assertThat(serializations).hasValue(1);
+    }
+
+    private Object body() {
+        serializations.incrementAndGet();
+        return List.of("Elden Ring");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.shopaccgame.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogServiceStartupTest {
+
+    @Test
+    void readerBeforeTheFirstSnapshotGetsServiceUnavailableAfterWaiting() {
+        CatalogService catalogService = new CatalogService();
+        ReflectionTestUtils.setField(catalogService, "startupWait", Duration.ofMillis(20));
+
+        // No repository is touched: the reader never builds the snapshot itself
+        assertThatThrownBy(catalogService::getSnapshot)
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+}
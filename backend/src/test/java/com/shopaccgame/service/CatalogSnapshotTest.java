@@ -0,0 +1,172 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.dto.AccountInfoDto;
+import com.shopaccgame.dto.CatalogQueryDto;
+import com.shopaccgame.dto.GameDto;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.entity.enums.AccountClassification;
+import com.shopaccgame.entity.enums.AccountStockStatus;
+import com.shopaccgame.entity.enums.AccountType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A snapshot patched with withListings must serve exactly what a snapshot built from scratch
+ * over the same listings serves.
+ */
+class CatalogSnapshotTest {
+
+    private static final GameNameIndex NO_GAMES = new GameNameIndex(List.of());
+
+    @Test
+    void patchedSnapshotMatchesFreshBuild() {
+        Random random = new Random(42);
+        Map<Long, CatalogSnapshot.Listing> listings = new HashMap<>();
+        for (long id = 1; id <= 40; id++) {
+            listings.put(id, listing(id, random));
+        }
+        CatalogSnapshot patched = new CatalogSnapshot(1, listings, NO_GAMES);
+
+        for (int round = 0; round < 20; round++) {
+            Map<Long, CatalogSnapshot.Listing> changes = new HashMap<>();
+            for (int i = 0; i < 5; i++) {
+                // Existing ids are replaced or removed; ids past the end are new listings
+                long id = 1 + random.nextInt(45 + round * 3);
+                CatalogSnapshot.Listing listing = random.nextInt(4) == 0 ? null : listing(id, random);
+                changes.put(id, listing);
+                if (listing != null) {
+                    listings.put(id, listing);
+                } else {
+                    listings.remove(id);
+                }
+            }
+            patched = patched.withListings(changes);
+            assertSameContent(patched, new CatalogSnapshot(1, listings, NO_GAMES));
+        }
+    }
+
+    @Test
+    void patchBumpsVersionAndKeepsUntouchedGroups() {
+        Random random = new Random(7);
+        Map<Long, CatalogSnapshot.Listing> listings = new HashMap<>();
+        for (long id = 1; id <= 10; id++) {
+            listings.put(id, listing(id, random));
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(3, listings, NO_GAMES);
+        CatalogSnapshot.Listing changed = listings.get(4L);
+        AccountType untouched = Arrays.stream(AccountType.values())
+            .filter(type -> type != changed.getAccountType() && !snapshot.getAvailableCards(type).isEmpty())
+            .findFirst().orElseThrow();
+
+        CatalogSnapshot next = snapshot.withListings(Map.of(4L, listing(4L, changed.getAccountType(), random)));
+
+        assertThat(next.getVersion()).isEqualTo(4);
+        assertThat(next.getAvailableCards(untouched)).isSameAs(snapshot.getAvailableCards(untouched));
+    }
+
+    @Test
+    void unchangedContentHashesEqual() {
+        Random random = new Random(3);
+        Map<Long, CatalogSnapshot.Listing> listings = new HashMap<>();
+        for (long id = 1; id <= 10; id++) {
+            listings.put(id, listing(id, random));
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, listings, NO_GAMES);
+
+        CatalogSnapshot removedAndRestored = snapshot
+            .withListings(Collections.singletonMap(5L, null))
+            .withListings(Map.of(5L, listings.get(5L)));
+
+        assertThat(removedAndRestored.getContentHash()).isEqualTo(snapshot.getContentHash());
+        assertThat(removedAndRestored.getContentHash())
+            .isEqualTo(new CatalogSnapshot(1, listings, NO_GAMES).getContentHash());
+    }
+
+    private static void assertSameContent(CatalogSnapshot actual, CatalogSnapshot expected) {
+        assertThat(ids(actual.getAvailableListings())).isEqualTo(ids(expected.getAvailableListings()));
+        assertThat(cardIds(actual.getAvailableCards())).isEqualTo(cardIds(expected.getAvailableCards()));
+        for (AccountType type : AccountType.values()) {
+            assertThat(ids(actual.getAvailableListings(type))).isEqualTo(ids(expected.getAvailableListings(type)));
+            assertThat(cardIds(actual.getAvailableCards(type))).isEqualTo(cardIds(expected.getAvailableCards(type)));
+            PageRequest byPrice = PageRequest.of(0, 1000, Sort.by("accountInfo.price", "id"));
+            assertThat(cardIds(actual.pageCards(type, byPrice).getContent()))
+                .isEqualTo(cardIds(expected.pageCards(type, byPrice).getContent()));
+        }
+        for (long gameId = 1; gameId <= 6; gameId++) {
+            assertThat(cardIds(actual.getAvailableCardsByGame(gameId)))
+                .isEqualTo(cardIds(expected.getAvailableCardsByGame(gameId)));
+        }
+        assertThat(actual.getContentHash()).isEqualTo(expected.getContentHash());
+
+        CatalogQueryDto query = new CatalogQueryDto();
+        query.setSize(100);
+        assertThat(ids(actual.getFacetIndex().query(query, 0).getContent()))
+            .isEqualTo(ids(expected.getFacetIndex().query(query, 0).getContent()));
+        assertThat(actual.getFacetIndex().query(query, 0).getFacets())
+            .usingRecursiveComparison().isEqualTo(expected.getFacetIndex().query(query, 0).getFacets());
+    }
+
+    private static CatalogSnapshot.Listing listing(long id, Random random) {
+        return listing(id, AccountType.values()[random.nextInt(AccountType.values().length)], random);
+    }
+
+    private static CatalogSnapshot.Listing listing(long id, AccountType type, Random random) {
+        Set<GameDto> games = new LinkedHashSet<>();
+        for (int i = 0, count = 1 + random.nextInt(3); i < count; i++) {
+            GameDto game = new GameDto();
+            game.setId(1L + random.nextInt(6));
+            game.setName("Game " + game.getId());
+            games.add(game);
+        }
+        AccountInfoDto summary = new AccountInfoDto();
+        summary.setId(id);
+        summary.setName("Listing " + id);
+        summary.setAccountType(type);
+        summary.setClassify(random.nextBoolean() ? AccountClassification.STOCK : AccountClassification.ORDER);
+        summary.setPrice(BigDecimal.valueOf(10_000L * (1 + random.nextInt(120))));
+        summary.setDiscountPercentage(random.nextInt(60));
+        summary.setGames(games);
+        summary.setGameIds(games.stream().map(GameDto::getId).collect(Collectors.toSet()));
+
+        List<SteamAccountDto> cards = new ArrayList<>();
+        long inStock = 0;
+        for (int i = 0, count = 1 + random.nextInt(3); i < count; i++) {
+            SteamAccountDto card = new SteamAccountDto();
+            // Card ids are unique across listings and stay grouped by listing
+            card.setId(id * 1000 + i * 100 + random.nextInt(100));
+            card.setAccountInfoId(id);
+            card.setAccountType(type);
+            card.setPrice(summary.getPrice());
+            card.setStatus(random.nextInt(4) == 0 ? AccountStockStatus.PRE_ORDER : AccountStockStatus.IN_STOCK);
+            if (card.getStatus() == AccountStockStatus.IN_STOCK) {
+                inStock++;
+            }
+            cards.add(card);
+        }
+        summary.setAvailableStockCount(inStock);
+        return new CatalogSnapshot.Listing(summary, cards);
+    }
+
+    private static List<Long> ids(List<AccountInfoDto> summaries) {
+        return summaries.stream().map(AccountInfoDto::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> cardIds(List<SteamAccountDto> cards) {
+        return cards.stream().map(SteamAccountDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.repository.projection.GameNameView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameNameIndexTest {
+
+    private final GameNameIndex index = new GameNameIndex(List.of(
+        game(1, "Đấu Trường Chân Lý"),
+        game(2, "Elden Ring"),
+        game(3, "Elden Ring: Shadow of the Erdtree"),
+        game(4, "The Elder Scrolls V: Skyrim"),
+        game(5, "Ring Fit Adventure"),
+        game(6, "Counter-Strike 2"),
+        game(7, "---")
+    ));
+
+    @Test
+    void normalizeFoldsCaseDiacriticsAndSeparators() {
+        assertThat(GameNameIndex.normalize("Đấu  Trường: Chân-Lý!")).isEqualTo("dau truong chan ly");
+        assertThat(GameNameIndex.normalize("  ")).isEmpty();
+        assertThat(GameNameIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void matchesNamePrefixIgnoringCaseAndAccents() {
+        assertThat(ids(index.suggest("dau tru", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("ĐẤU", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("elden", 10))).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void nameMatchesComeBeforeWordMatches() {
+        // "Ring Fit Adventure" starts with the query; the Elden Ring titles only contain it as a word
+        assertThat(ids(index.suggest("ring", 10))).containsExactly(5L, 2L, 3L);
+    }
+
+    @Test
+    void matchesLaterWordsAndPunctuatedNames() {
+        assertThat(ids(index.suggest("skyr", 10))).containsExactly(4L);
+        assertThat(ids(index.suggest("strike", 10))).containsExactly(6L);
+        assertThat(ids(index.suggest("counter strike 2", 10))).containsExactly(6L);
+    }
+
+    @Test
+    void gameMatchingTwiceIsListedOnce() {
+        // "Elden Ring: Shadow of the Erdtree" matches "e" by name and by "erdtree"
+        List<Long> ids = ids(index.suggest("e", 10));
+        assertThat(ids).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void limitCapsResults() {
+        assertThat(index.suggest("e", 2)).hasSize(2);
+        assertThat(index.suggest("e", 0)).isEmpty();
+    }
+
+    @Test
+    void blankOrUnmatchedQueriesFindNothing() {
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.suggest("--", 10)).isEmpty();
+        assertThat(index.suggest("zelda", 10)).isEmpty();
+        assertThat(new GameNameIndex(List.of()).suggest("elden", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsEveryGameIncludingUnsearchableNames() {
+        assertThat(index.size()).isEqualTo(7);
+        assertThat(index.getGames()).extracting(GameNameView::getId).contains(7L);
+    }
+
+    private static List<Long> ids(List<GameNameView> games) {
+        return games.stream().map(GameNameView::getId).toList();
+    }
+
+    private static GameNameView game(long id, String name) {
+        return new GameNameView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.PostgresIntegrationTest;
+import com.shopaccgame.dto.SteamAccountDto;
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.entity.Game;
+import com.shopaccgame.entity.SteamAccount;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.GameRepository;
+import com.shopaccgame.repository.SteamAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Game-name filtering must see every matching game, not just the best-ranked SearchService.MAX_RESULTS.
+ */
+class SteamAccountGameSearchTest extends PostgresIntegrationTest {
+
+    private static final int MATCHING_GAMES = SearchService.MAX_RESULTS + 50;
+
+    @Autowired
+    private SteamAccountServiceNew steamAccountService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void seedGames() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Game lastRanked = null;
+            for (int i = 0; i < MATCHING_GAMES; i++) {
+                // Equal relevance, so the ranking falls back to id and the last game ranks last
+                lastRanked = gameRepository.save(new Game("Quest Saga " + i, null));
+            }
+            gameRepository.save(new Game("Unrelated Racer", null));
+            for (int i = 0; i < 3; i++) {
+                AccountInfo accountInfo = new AccountInfo("Listing " + i, null, AccountType.ONE_GAME,
+                    BigDecimal.valueOf(300 - i * 100));
+                accountInfo.getGames().add(lastRanked);
+                accountInfo = accountInfoRepository.save(accountInfo);
+                steamAccountRepository.save(new SteamAccount(accountInfo, "CODE-" + i, "user" + i, "secret"));
+            }
+        });
+    }
+
+    @Test
+    void listMatchesGamesRankedBeyondTheCap() {
+        List<SteamAccountDto> accounts = steamAccountService.getAvailableAccountsByGameName("quest");
+
+        assertThat(accounts).extracting(SteamAccountDto::getAccountCode)
+            .containsExactly("CODE-2", "CODE-1", "CODE-0");
+        assertThat(accounts).allSatisfy(account -> assertThat(account.getGames()).hasSize(1));
+    }
+
+    @Test
+    void pageMatchesGamesRankedBeyondTheCapAndKeepsSort() {
+        Page<SteamAccountDto> page = steamAccountService.getAvailableAccountsByGameName("quest",
+            steamAccountService.createListingPageable(0, 2, "price", "asc"));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(SteamAccountDto::getAccountCode)
+            .containsExactly("CODE-2", "CODE-1");
+    }
+
+    @Test
+    void noMatchIsEmpty() {
+        assertThat(steamAccountService.getAvailableAccountsByGameName("racer")).isEmpty();
+        assertThat(steamAccountService.getAvailableAccountsByGameName("racer",
+            steamAccountService.createListingPageable(0, 10, "id", "desc")).getTotalElements()).isZero();
+    }
+}
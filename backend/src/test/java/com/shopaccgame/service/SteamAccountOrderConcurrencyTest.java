@@ -0,0 +1,146 @@
+package com.shopaccgame.service;
+
+import com.shopaccgame.PostgresIntegrationTest;
+import com.shopaccgame.dto.OrderRequestDto;
+import com.shopaccgame.dto.OrderResponseDto;
+import com.shopaccgame.entity.AccountInfo;
+import com.shopaccgame.entity.SteamAccount;
+import com.shopaccgame.entity.User;
+import com.shopaccgame.entity.enums.AccountType;
+import com.shopaccgame.repository.AccountInfoRepository;
+import com.shopaccgame.repository.SteamAccountRepository;
+import com.shopaccgame.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout races on the real database: reserveSteamAccount's SKIP LOCKED row lock plus the
+ * active-order check must let exactly one buyer have an account however many try at once.
+ */
+class SteamAccountOrderConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int BUYERS = 300;
+    private static final int THREADS = 64;
+    private static final String ALREADY_IN_ORDER = "Steam account is already being processed in another order";
+
+    @Autowired
+    private SteamAccountOrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private SteamAccountRepository steamAccountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> steamAccountIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < BUYERS; i++) {
+                User user = new User();
+                user.setUsername("buyer" + i);
+                user.setEmail("buyer" + i + "@example.com");
+                user.setPassword("password");
+                user.setRole(User.Role.USER);
+                user.setEnabled(true);
+                userRepository.save(user);
+            }
+            AccountInfo accountInfo = accountInfoRepository.save(
+                new AccountInfo("Elden Ring", "Full access", AccountType.ONE_GAME, BigDecimal.valueOf(149_000)));
+            for (int i = 0; i < 10; i++) {
+                SteamAccount account = steamAccountRepository.save(
+                    new SteamAccount(accountInfo, "CODE-" + i, "steam" + i, "secret"));
+                steamAccountIds.add(account.getId());
+            }
+        });
+    }
+
+    @Test
+    void exactlyOneOfManyParallelBuyersGetsTheAccount() throws Exception {
+        Long steamAccountId = steamAccountIds.get(0);
+
+        List<Future<OrderResponseDto>> results = buyAll(buyer -> steamAccountId);
+
+        List<OrderResponseDto> orders = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        collect(results, orders, failures);
+        assertThat(orders).hasSize(1);
+        // Losers either found the row locked or saw the winner's committed order; nothing else went wrong
+        assertThat(failures).hasSize(BUYERS - 1)
+            .allSatisfy(failure -> assertThat(failure).isExactlyInstanceOf(RuntimeException.class)
+                .hasMessage(ALREADY_IN_ORDER));
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM steam_account_orders WHERE steam_account_id = ?", Long.class, steamAccountId))
+            .isEqualTo(1);
+    }
+
+    @Test
+    void parallelBuyersOfDifferentAccountsEachSellOnce() throws Exception {
+        List<Future<OrderResponseDto>> results = buyAll(buyer -> steamAccountIds.get(buyer % steamAccountIds.size()));
+
+        List<OrderResponseDto> orders = new ArrayList<>();
+        collect(results, orders, new ArrayList<>());
+        // Every account is sold once, to one buyer; contention on one account does not stop the others
+        assertThat(orders).hasSameSizeAs(steamAccountIds);
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT steam_account_id FROM steam_account_orders", Long.class))
+            .containsExactlyInAnyOrderElementsOf(steamAccountIds);
+    }
+
+    private List<Future<OrderResponseDto>> buyAll(IntFunction<Long> accountOfBuyer)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderResponseDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BUYERS; i++) {
+                String username = "buyer" + i;
+                OrderRequestDto request = new OrderRequestDto(accountOfBuyer.apply(i));
+                Callable<OrderResponseDto> purchase = () -> {
+                    start.await();
+                    return orderService.createOrder(request, username);
+                };
+                results.add(executor.submit(purchase));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        return results;
+    }
+
+    private static void collect(List<Future<OrderResponseDto>> results, List<OrderResponseDto> orders,
+                                List<Throwable> failures) throws InterruptedException {
+        for (Future<OrderResponseDto> result : results) {
+            try {
+                orders.add(result.get());
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+    }
+}
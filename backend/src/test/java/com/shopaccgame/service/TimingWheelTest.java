@@ -0,0 +1,155 @@
+package com.shopaccgame.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    // Same shape as ExpiryScheduler: levels span 64 s, ~68 min and ~73 h
+    private static final long TICK = 1000;
+    private static final int SIZE = 64;
+    private static final long LEVEL_1 = TICK * SIZE;
+    private static final long LEVEL_2 = LEVEL_1 * SIZE;
+    // Aligned to every level so boundaries below are exact
+    private static final long START = LEVEL_2 * SIZE * 10;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, START);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void deadlineInsideCurrentTickFiresWhenTheTickEnds() {
+        assertThat(wheel.add("now", START)).isTrue();
+        assertThat(wheel.add("half", START + 500)).isTrue();
+
+        advanceTo(START + TICK - 1);
+        assertThat(fired).isEmpty();
+
+        advanceTo(START + TICK);
+        assertThat(fired).containsExactlyInAnyOrder("now", "half");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesOnLevelBoundariesFireOnTime() {
+        for (long deadline : new long[] {
+                START + LEVEL_1 - 1, START + LEVEL_1, START + LEVEL_1 + 1,
+                START + LEVEL_2 - 1, START + LEVEL_2, START + LEVEL_2 + 1}) {
+            assertThat(wheel.add(String.valueOf(deadline), deadline)).isTrue();
+        }
+        assertThat(wheel.size()).isEqualTo(6);
+
+        assertFiresAt(START + LEVEL_1, String.valueOf(START + LEVEL_1 - 1));
+        assertFiresAt(START + LEVEL_1 + TICK, String.valueOf(START + LEVEL_1), String.valueOf(START + LEVEL_1 + 1));
+        assertFiresAt(START + LEVEL_2, String.valueOf(START + LEVEL_2 - 1));
+        assertFiresAt(START + LEVEL_2 + TICK, String.valueOf(START + LEVEL_2), String.valueOf(START + LEVEL_2 + 1));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesTwoLevelsOutCascadeDownTickByTick() {
+        long threeHours = START + 3 * 3_600_000L + 250;
+        long twoDays = START + 2 * 86_400_000L;
+        wheel.add("3h", threeHours);
+        wheel.add("2d", twoDays);
+
+        // One advance per tick, as ExpiryScheduler drives it, through every cascade on the way
+        for (long now = START + TICK; now <= threeHours; now += TICK) {
+            advanceTo(now);
+        }
+        assertThat(fired).isEmpty();
+        advanceTo(threeHours - 250 + TICK);
+        assertThat(fired).containsExactly("3h");
+
+        assertFiresAt(twoDays + TICK, "2d");
+    }
+
+    @Test
+    void overdueAddIsRefusedAndLeftToTheCaller() {
+        advanceTo(START + 5 * TICK + 300);
+
+        assertThat(wheel.add("late", START + 5 * TICK - 1)).isFalse();
+        assertThat(wheel.size()).isZero();
+        // Earlier in the current tick than the clock but not before the tick start: still accepted
+        assertThat(wheel.add("this tick", START + 5 * TICK)).isTrue();
+
+        advanceTo(START + 6 * TICK);
+        assertThat(fired).containsExactly("this tick");
+    }
+
+    @Test
+    void largeJumpFiresEverythingDueInDeadlineOrder() {
+        long[] deadlines = {START + 10, START + 70_000, START + LEVEL_2 + 5_000, START + 30 * 3_600_000L,
+            START + 5 * 86_400_000L};
+        for (int i = deadlines.length - 1; i >= 0; i--) {
+            wheel.add(String.valueOf(i), deadlines[i]);
+        }
+        wheel.add("later", START + 6 * 86_400_000L);
+
+        advanceTo(START + 5 * 86_400_000L + TICK);
+
+        assertThat(fired).containsExactly("0", "1", "2", "3", "4");
+        assertThat(wheel.size()).isEqualTo(1);
+        // The clock kept up: new deadlines after the jump land in the right place
+        assertThat(wheel.add("after", START + 5 * 86_400_000L + 2 * TICK)).isTrue();
+        advanceTo(START + 5 * 86_400_000L + 3 * TICK);
+        assertThat(fired).endsWith("after");
+        advanceTo(START + 6 * 86_400_000L + TICK);
+        assertThat(fired).endsWith("later");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void randomScheduleMatchesTickRoundedDeadlines() {
+        Random random = new Random(42);
+        long start = 1_760_000_123_457L;
+        TimingWheel<Integer> randomWheel = new TimingWheel<>(TICK, SIZE, start);
+        Map<Integer, Long> dueAt = new HashMap<>();
+        Map<Integer, long[]> firedBetween = new HashMap<>();
+        long now = start;
+        int next = 0;
+        for (int step = 0; step < 2_000; step++) {
+            for (int i = random.nextInt(5); i > 0; i--) {
+                long deadline = now + (long) (random.nextDouble() * random.nextDouble() * 4 * LEVEL_2);
+                if (randomWheel.add(next, deadline)) {
+                    // Fires at the end of the deadline's tick
+                    dueAt.put(next, deadline - Math.floorMod(deadline, TICK) + TICK);
+                }
+                next++;
+            }
+            long previous = now;
+            now += random.nextInt(10) == 0 ? random.nextInt((int) LEVEL_2) : random.nextInt((int) (3 * TICK));
+            long current = now;
+            randomWheel.advanceTo(now, item -> firedBetween.put(item, new long[] {previous, current}));
+        }
+        long last = now;
+        randomWheel.advanceTo(last + 5 * LEVEL_2, item -> firedBetween.put(item, new long[] {last, last + 5 * LEVEL_2}));
+
+        assertThat(firedBetween.keySet()).isEqualTo(dueAt.keySet());
+        // Each item fired on the first advance that reached its due time
+        dueAt.forEach((item, due) -> assertThat(due).as("item %d", item)
+            .isGreaterThan(firedBetween.get(item)[0]).isLessThanOrEqualTo(firedBetween.get(item)[1]));
+        assertThat(randomWheel.size()).isZero();
+    }
+
+    /**
+     * Nothing fires up to a millisecond before dueMs, then exactly the expected items fire at dueMs
+     */
+    private void assertFiresAt(long dueMs, String... expected) {
+        fired.clear();
+        advanceTo(dueMs - 1);
+        assertThat(fired).as("before %d", dueMs).isEmpty();
+        advanceTo(dueMs);
+        assertThat(fired).containsExactlyInAnyOrder(expected);
+    }
+
+    private void advanceTo(long nowMs) {
+        wheel.advanceTo(nowMs, fired::add);
+    }
+}
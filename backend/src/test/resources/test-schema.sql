@@ -0,0 +1,2 @@
+-- Parts of the migrations that Hibernate's generated schema does not carry
+ALTER TABLE account_info ALTER COLUMN available_stock SET DEFAULT 0;